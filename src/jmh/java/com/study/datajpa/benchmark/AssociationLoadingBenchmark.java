@@ -0,0 +1,133 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.repository.TeamRepository;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 + 팀 조회 방식 비교
+ * LAZY 는 팀 수 만큼 추가 쿼리가 나가는 N + 1, 나머지는 한번에 가져오는 방식이다
+ * batchFetchSize 를 주면 LAZY 도 in 쿼리로 묶여서 조회된다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class AssociationLoadingBenchmark {
+
+    static final String USER_NAME = "member"; // 모든 회원의 이름을 같게 해서 NAMED_GRAPH 도 전체를 조회한다 (샘플 회원은 BenchmarkContext 에서 끈다)
+
+    public enum Strategy {
+        LAZY {
+            @Override
+            List<Member> load(MemberRepository repository) {
+                return repository.findMemberCustom();
+            }
+        },
+        FETCH_JOIN {
+            @Override
+            List<Member> load(MemberRepository repository) {
+                return repository.findMemberFetchJoin();
+            }
+        },
+        ENTITY_GRAPH {
+            @Override
+            List<Member> load(MemberRepository repository) {
+                return repository.findMemberEntityGraph();
+            }
+        },
+        FIND_ALL_GRAPH {
+            @Override
+            List<Member> load(MemberRepository repository) {
+                return repository.findAll();
+            }
+        },
+        NAMED_GRAPH {
+            @Override
+            List<Member> load(MemberRepository repository) {
+                return repository.findEntityGraphByUserName(USER_NAME);
+            }
+        };
+
+        abstract List<Member> load(MemberRepository repository);
+    }
+
+    @Param({"10", "100"})
+    int teams;
+
+    @Param({"10"})
+    int membersPerTeam;
+
+    @Param({"0", "100"})
+    int batchFetchSize;
+
+    @Param
+    Strategy strategy;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of(
+                "spring.jpa.properties.hibernate.default_batch_fetch_size", batchFetchSize));
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        statistics = BenchmarkContext.statistics(context);
+
+        List<Team> teamList = new ArrayList<>();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < teams; i++) {
+            Team team = new Team("team" + i);
+            teamList.add(team);
+            for (int j = 0; j < membersPerTeam; j++) {
+                members.add(new Member(USER_NAME, j, team));
+            }
+        }
+        context.getBean(TeamRepository.class).saveAllBatched(teamList, 100);
+        context.getBean(MemberJpaRepository.class).saveAllBatched(members, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int loadMembersWithTeam(StatementCounter counter, Blackhole blackhole) {
+        long begin = counter.begin(statistics);
+        Integer loaded = transactionTemplate.execute(status -> {
+            List<Member> members = strategy.load(memberRepository);
+            for (Member member : members) {
+                if (member.getTeam() != null) {
+                    blackhole.consume(member.getTeam().getName());
+                }
+            }
+            return members.size();
+        });
+        counter.end(statistics, begin);
+        return loaded;
+    }
+}
@@ -0,0 +1,109 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기존 save 반복과 saveAllBatched 의 저장 시간 비교
+ * SAVE : 건마다 트랜잭션 + insert (트랜잭션을 건마다 커밋하는 실제 상황)
+ * SAVE_ALL_BATCHED : 한 트랜잭션에서 batchSize 마다 jdbc batch insert 후 영속성 컨텍스트를 비운다
+ * 팀이 섞여 있어도 order_inserts 로 같은 테이블 insert 끼리 묶인다
+ * 매 호출 전에 저장한 회원을 지워서 테이블 크기를 유지한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchInsertBenchmark {
+
+    static final int TEAMS = 10;
+
+    public enum Strategy {
+        SAVE {
+            @Override
+            int save(MemberJpaRepository repository, List<Member> members, int batchSize) {
+                members.forEach(repository::save);
+                return members.size();
+            }
+        },
+        SAVE_ALL_BATCHED {
+            @Override
+            int save(MemberJpaRepository repository, List<Member> members, int batchSize) {
+                return repository.saveAllBatched(members, batchSize);
+            }
+        };
+
+        abstract int save(MemberJpaRepository repository, List<Member> members, int batchSize);
+    }
+
+    @Param({"2000"})
+    int rows;
+
+    @Param({"50"})
+    int batchSize;
+
+    @Param
+    Strategy strategy;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate transactionTemplate;
+    EntityManager em;
+    List<Team> teams;
+    List<Member> members;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        em = context.getBean(EntityManager.class);
+
+        teams = new ArrayList<>();
+        for (int i = 0; i < TEAMS; i++) {
+            teams.add(new Team("bench-team" + i));
+        }
+        context.getBean(TeamRepository.class).saveAllBatched(teams, batchSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        transactionTemplate.executeWithoutResult(status -> em.createQuery("delete from Member").executeUpdate());
+        members = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            // 생성자의 changeTeam 은 준영속 팀의 (로딩된) members 에 계속 추가하므로 연관관계의 주인만 설정한다
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(teams.get(i % TEAMS));
+            members.add(member);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int save() {
+        return strategy.save(memberJpaRepository, members, batchSize);
+    }
+}
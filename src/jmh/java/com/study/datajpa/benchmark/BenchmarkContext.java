@@ -0,0 +1,49 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.DataJpaApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 매 trial 마다 새로운 인메모리 h2 를 사용하고, 측정에 영향을 주는 sql 로그와 2차 캐시는 끈다
+ * 샘플 회원도 저장하지 않으므로 db 에는 벤치마크가 직접 만든 데이터만 있다
+ */
+final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.main.web-application-type", "none");
+        properties.put("spring.main.banner-mode", "off");
+        properties.put("spring.jpa.open-in-view", "false");
+        properties.put("sample-data.enabled", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("spring.jpa.properties.hibernate.cache.use_second_level_cache", "false");
+        properties.put("spring.jpa.properties.hibernate.cache.use_query_cache", "false");
+        properties.put("logging.level.root", "warn");
+        properties.put("logging.level.org.hibernate.SQL", "warn");
+        properties.put("logging.level.org.hibernate.orm.jdbc.bind", "warn");
+        properties.putAll(overrides);
+
+        // application.yml 보다 우선하도록 커맨드라인 인자로 넘긴다
+        String[] args = properties.entrySet().stream()
+                .map(entry -> "--" + entry.getKey() + "=" + entry.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(DataJpaApplication.class).run(args);
+    }
+
+    static Statistics statistics(ConfigurableApplicationContext context) {
+        return context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,125 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 한 명을 큰 팀으로 옮기는 비용 비교
+ * INITIALIZE_MEMBERS : members 컬렉션이 초기화된 뒤 add 되는 경우 (add 를 큐에 쌓아둘 수 없는 경우와 같다)
+ * LEGACY_ADD : 이전 changeTeam. 영속 상태의 inverse bag 은 add 를 큐에 쌓아두므로 조회는 없지만
+ *              팀이 프록시면 팀을 초기화하고, 준영속 팀이면 LazyInitializationException 이 발생한다
+ * CHANGE_TEAM : 현재 changeTeam. 영속 상태의 팀이면 LEGACY_ADD 와 같이 add 를 쌓아두고 (비용도 같다)
+ *               준영속 / 세션이 닫힌 팀이면 members 를 건드리지 않는다
+ * teamReference 가 true 면 팀을 getReference(프록시) 로 가져온다
+ * 매 호출은 롤백해서 팀 크기를 유지한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChangeTeamBenchmark {
+
+    public enum Strategy {
+        INITIALIZE_MEMBERS {
+            @Override
+            void move(Member member, Team team) {
+                member.setTeam(team);
+                team.getMembers().size(); // 이전 구현에서 add 전에 컬렉션이 초기화되던 경우
+                team.getMembers().add(member);
+            }
+        },
+        LEGACY_ADD {
+            @Override
+            void move(Member member, Team team) {
+                member.setTeam(team);
+                team.getMembers().add(member);
+            }
+        },
+        CHANGE_TEAM {
+            @Override
+            void move(Member member, Team team) {
+                member.changeTeam(team);
+            }
+        };
+
+        abstract void move(Member member, Team team);
+    }
+
+    @Param({"1000", "100000"})
+    int teamSize;
+
+    @Param
+    Strategy strategy;
+
+    @Param({"false", "true"})
+    boolean teamReference;
+
+    ConfigurableApplicationContext context;
+    TransactionTemplate transactionTemplate;
+    EntityManager em;
+    Statistics statistics;
+    Long bigTeamId;
+    Long movingMemberId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        em = context.getBean(EntityManager.class);
+        statistics = BenchmarkContext.statistics(context);
+
+        Team bigTeam = new Team("big");
+        Team smallTeam = new Team("small");
+        context.getBean(TeamRepository.class).saveAllBatched(List.of(bigTeam, smallTeam), 2);
+        bigTeamId = bigTeam.getId();
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < teamSize; i++) {
+            members.add(new Member("member" + i, i % 100, bigTeam));
+        }
+        Member moving = new Member("moving", 20, smallTeam);
+        members.add(moving);
+        context.getBean(MemberJpaRepository.class).saveAllBatched(members, 1000);
+        movingMemberId = moving.getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long moveToBigTeam(StatementCounter counter) {
+        long begin = counter.begin(statistics);
+        Long teamId = transactionTemplate.execute(status -> {
+            Member member = em.find(Member.class, movingMemberId);
+            Team team = teamReference ? em.getReference(Team.class, bigTeamId) : em.find(Team.class, bigTeamId);
+            strategy.move(member, team);
+            em.flush();
+            status.setRollbackOnly();
+            return bigTeamId;
+        });
+        counter.end(statistics, begin);
+        return teamId;
+    }
+}
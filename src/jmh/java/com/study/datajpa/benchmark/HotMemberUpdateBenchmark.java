@@ -0,0 +1,137 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.retry.RetryBudget;
+import com.study.datajpa.service.MemberService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 여러 스레드가 소수의 회원(hotMembers) 나이를 동시에 올릴 때의 처리량 비교
+ * OPTIMISTIC : @Version + @RetryOnOptimisticLock (MemberService.increaseAge)
+ * PESSIMISTIC : select ... for update (MemberService.increaseAgeWithLock)
+ * hotMembers 가 작을수록 충돌이 잦다. 재시도 한도를 넘어 실패한 호출은 failures 로 따로 센다
+ * 재시도 / 한도에 막힌 재시도 수는 retries / rejectedRetries 로 함께 출력한다
+ * 예) ./gradlew jmh -Pjmh.includes=HotMemberUpdate
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(8)
+public class HotMemberUpdateBenchmark {
+
+    public enum Strategy {
+        OPTIMISTIC {
+            @Override
+            int increase(MemberService memberService, Long memberId) {
+                return memberService.increaseAge(memberId, 1);
+            }
+        },
+        PESSIMISTIC {
+            @Override
+            int increase(MemberService memberService, Long memberId) {
+                return memberService.increaseAgeWithLock(memberId, 1);
+            }
+        };
+
+        abstract int increase(MemberService memberService, Long memberId);
+    }
+
+    @Param({"1", "8", "64"})
+    int hotMembers;
+
+    @Param
+    Strategy strategy;
+
+    ConfigurableApplicationContext context;
+    MemberService memberService;
+    RetryBudget retryBudget;
+    List<Long> memberIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // 버전 충돌마다 하이버네이트가 남기는 error 로그(HHH000315) 는 측정에서 뺀다
+        context = BenchmarkContext.start(Map.of("logging.level.org.hibernate.engine.jdbc.batch.internal.BatchingBatch", "off"));
+        memberService = context.getBean(MemberService.class);
+        retryBudget = context.getBean(RetryBudget.class);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < hotMembers; i++) {
+            members.add(new Member("hot" + i, 0));
+        }
+        context.getBean(MemberJpaRepository.class).saveAllBatched(members, 100);
+        memberIds = members.stream().map(Member::getId).toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int increaseAge(Outcome outcome) {
+        Long memberId = memberIds.get(ThreadLocalRandom.current().nextInt(memberIds.size()));
+        try {
+            int age = strategy.increase(memberService, memberId);
+            outcome.succeeded++;
+            return age;
+        } catch (OptimisticLockingFailureException e) {
+            outcome.failures++;
+            return -1;
+        }
+    }
+
+    // 처리량(ops) 에는 실패한 호출도 포함되므로 성공 / 실패 수를 함께 출력한다
+    // 재시도 수는 RetryBudget 의 전역 값이라 스레드별로 나눌 수 없으므로 0번 스레드만 iteration 동안 늘어난 값을 기록한다
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+        public long succeeded;
+        public long failures;
+        public long retries;
+        public long rejectedRetries;
+
+        private boolean reporter;
+        private long retriesBefore;
+        private long rejectedBefore;
+
+        @Setup(Level.Iteration)
+        public void reset(HotMemberUpdateBenchmark benchmark, ThreadParams threadParams) {
+            succeeded = 0;
+            failures = 0;
+            retries = 0;
+            rejectedRetries = 0;
+            reporter = threadParams.getThreadIndex() == 0;
+            retriesBefore = benchmark.retryBudget.getRetries();
+            rejectedBefore = benchmark.retryBudget.getRejected();
+        }
+
+        @TearDown(Level.Iteration)
+        public void record(HotMemberUpdateBenchmark benchmark) {
+            if (reporter) {
+                retries = benchmark.retryBudget.getRetries() - retriesBefore;
+                rejectedRetries = benchmark.retryBudget.getRejected() - rejectedBefore;
+            }
+        }
+    }
+}
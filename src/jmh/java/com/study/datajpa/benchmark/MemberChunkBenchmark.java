@@ -0,0 +1,118 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberJpaRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 전체 회원의 나이를 1 씩 올리는 배치 작업 비교
+ * FIND_ALL : 이전 방식. findAll 로 전체를 한 영속성 컨텍스트에 올리고 커밋 시 한번에 flush
+ * SCROLL : scrollInChunks. 한 트랜잭션, 청크마다 flush / clear
+ * CHUNKS / CHUNKS_4 : processInChunks. 청크마다 커밋, 작업자 1 / 4 스레드
+ * 전체 할당량(gc.alloc.rate.norm) 은 비슷하고 차이는 한번에 붙잡고 있는 양이라 -jvmArgs -Xmx256m 처럼 힙을 줄여서 비교한다
+ * (memberCount=100000, -Xmx256m : FIND_ALL / SCROLL 은 OutOfMemoryError, CHUNKS 는 통과
+ *  SCROLL 은 영속성 컨텍스트는 비우지만 커밋 전까지 바꾼 row 의 undo 로그와 리스너 콜백이 남는다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class MemberChunkBenchmark {
+
+    public enum Strategy {
+        FIND_ALL {
+            @Override
+            long run(MemberJpaRepository repository, TransactionTemplate transactionTemplate, int chunkSize,
+                     Consumer<List<Member>> handler) {
+                return transactionTemplate.execute(status -> {
+                    List<Member> members = repository.findAll();
+                    for (int from = 0; from < members.size(); from += chunkSize) {
+                        handler.accept(members.subList(from, Math.min(members.size(), from + chunkSize)));
+                    }
+                    return (long) members.size();
+                });
+            }
+        },
+        SCROLL {
+            @Override
+            long run(MemberJpaRepository repository, TransactionTemplate transactionTemplate, int chunkSize,
+                     Consumer<List<Member>> handler) {
+                return repository.scrollInChunks(chunkSize, handler);
+            }
+        },
+        CHUNKS {
+            @Override
+            long run(MemberJpaRepository repository, TransactionTemplate transactionTemplate, int chunkSize,
+                     Consumer<List<Member>> handler) {
+                return repository.processInChunks(chunkSize, 1, handler);
+            }
+        },
+        CHUNKS_4 {
+            @Override
+            long run(MemberJpaRepository repository, TransactionTemplate transactionTemplate, int chunkSize,
+                     Consumer<List<Member>> handler) {
+                return repository.processInChunks(chunkSize, 4, handler);
+            }
+        };
+
+        abstract long run(MemberJpaRepository repository, TransactionTemplate transactionTemplate, int chunkSize,
+                          Consumer<List<Member>> handler);
+    }
+
+    @Param({"10000", "100000"})
+    int memberCount;
+
+    @Param({"500"})
+    int chunkSize;
+
+    @Param
+    Strategy strategy;
+
+    ConfigurableApplicationContext context;
+    MemberJpaRepository memberJpaRepository;
+    TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        memberJpaRepository = context.getBean(MemberJpaRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        memberJpaRepository.saveAllBatched(members, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long ageAll() {
+        return strategy.run(memberJpaRepository, transactionTemplate, chunkSize,
+                chunk -> chunk.forEach(member -> member.setAge(member.getAge() + 1)));
+    }
+}
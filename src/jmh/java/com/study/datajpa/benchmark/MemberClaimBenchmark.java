@@ -0,0 +1,123 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * claimByAge 작업 큐의 작업자 수별 처리 시간
+ * 작업자마다 batchSize 만큼 잠그고, 작업 시간을 흉내낸 뒤 처리 완료로 표시하고 커밋한다
+ * 잠긴 row 는 기다리지 않고 건너뛰므로 작업자를 늘리면 처리 시간이 줄어야 한다
+ * (sql 로그 같은 고정 비용보다 작업 시간이 커야 차이가 보이므로 workMillis 를 둔다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberClaimBenchmark {
+
+    static final int PENDING = 1;
+    static final int DONE = 2;
+
+    @Param({"1", "4"})
+    int workers;
+
+    @Param({"120"})
+    int memberCount;
+
+    @Param({"5"})
+    int batchSize;
+
+    @Param({"100"})
+    long workMillis;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate transactionTemplate;
+    EntityManager em;
+    ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        em = context.getBean(EntityManager.class);
+        executor = Executors.newFixedThreadPool(workers);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new Member("claim" + i, PENDING));
+        }
+        memberRepository.saveAllBatched(members, 50);
+    }
+
+    @Setup(Level.Invocation)
+    public void resetToPending() {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.age = :pending where m.age = :done")
+                        .setParameter("pending", PENDING)
+                        .setParameter("done", DONE)
+                        .executeUpdate());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        context.close();
+    }
+
+    @Benchmark
+    public long process() throws Exception {
+        AtomicLong processed = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < workers; w++) {
+            futures.add(executor.submit(() -> {
+                while (true) {
+                    Integer claimed = transactionTemplate.execute(status -> {
+                        List<Member> batch = memberRepository.claimByAge(PENDING, batchSize);
+                        batch.forEach(member -> member.setAge(DONE));
+                        sleep(workMillis);
+                        return batch.size();
+                    });
+                    if (claimed == null || claimed == 0) {
+                        return;
+                    }
+                    processed.addAndGet(claimed);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        return processed.get();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.dto.MemberDto;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.repository.TeamRepository;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /members 목록 한 페이지를 만드는 비용 비교
+ * ENTITY : 이전 구현. 엔티티 페이지를 조회해서 MemberDto::new 로 변환 (teamName 없음)
+ * ENTITY_WITH_TEAM : 엔티티 경로에서 teamName 까지 채우는 경우. 지연 로딩으로 팀 수 만큼 쿼리가 더 나간다
+ * PROJECTION : findMemberDtoPage 로 DTO 를 바로 조회
+ * 페이지당 힙 사용량은 gc 프로파일러의 gc.alloc.rate.norm (B/op) 으로 확인한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MemberListBenchmark {
+
+    public enum Path {
+        ENTITY {
+            @Override
+            Page<MemberDto> load(MemberRepository repository, Pageable pageable) {
+                return repository.findAll(pageable).map(MemberDto::new);
+            }
+        },
+        ENTITY_WITH_TEAM {
+            @Override
+            Page<MemberDto> load(MemberRepository repository, Pageable pageable) {
+                return repository.findAll(pageable).map(member -> new MemberDto(
+                        member.getId(),
+                        member.getUserName(),
+                        member.getTeam() == null ? null : member.getTeam().getName()));
+            }
+        },
+        PROJECTION {
+            @Override
+            Page<MemberDto> load(MemberRepository repository, Pageable pageable) {
+                return repository.findMemberDtoPage(pageable);
+            }
+        };
+
+        abstract Page<MemberDto> load(MemberRepository repository, Pageable pageable);
+    }
+
+    @Param({"20", "100"})
+    int pageSize;
+
+    @Param
+    Path path;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        statistics = BenchmarkContext.statistics(context);
+        pageable = PageRequest.of(3, pageSize, Sort.by("userName"));
+
+        List<Team> teams = new ArrayList<>();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Team team = new Team("team" + i);
+            teams.add(team);
+            for (int j = 0; j < 100; j++) {
+                members.add(new Member("member" + (j * 100 + i), j, team));
+            }
+        }
+        context.getBean(TeamRepository.class).saveAllBatched(teams, 100);
+        context.getBean(MemberJpaRepository.class).saveAllBatched(members, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 컨트롤러처럼 OSIV 영속성 컨텍스트 안에서 변환까지 하는 것을 트랜잭션 하나로 흉내낸다
+    @Benchmark
+    public Page<MemberDto> page(StatementCounter counter) {
+        long begin = counter.begin(statistics);
+        Page<MemberDto> page = transactionTemplate.execute(status -> path.load(memberRepository, pageable));
+        counter.end(statistics, begin);
+        return page;
+    }
+}
@@ -0,0 +1,112 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.repository.UserNameWithAge;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 이름의 회원 rows 명을 "이름 나이" 문자열로 조회하는 비용 비교
+ * OPEN_SPEL : 예전 UserNameOnly(@Value) 방식. 엔티티 전체를 조회하고 row 마다 SpEL 을 평가한다
+ * CLOSED : 필요한 컬럼만 조회하는 closed projection 후 자바에서 문자열을 만든다
+ * SELECT_EXPRESSION : findProjectionsByUsername. 계산식을 select 절에서 처리한다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark {
+
+    static final String USER_NAME = "member";
+
+    public interface OpenUserName {
+        @Value("#{target.userName + ' ' + target.age}")
+        String getUserName();
+    }
+
+    public interface UserNameAndAge {
+        String getUserName();
+
+        int getAge();
+    }
+
+    public enum Strategy {
+        OPEN_SPEL {
+            @Override
+            void load(MemberRepository repository, Blackhole blackhole) {
+                for (OpenUserName row : repository.findDynamicProjectionsByUserName(USER_NAME, OpenUserName.class)) {
+                    blackhole.consume(row.getUserName());
+                }
+            }
+        },
+        CLOSED {
+            @Override
+            void load(MemberRepository repository, Blackhole blackhole) {
+                for (UserNameAndAge row : repository.findDynamicProjectionsByUserName(USER_NAME, UserNameAndAge.class)) {
+                    blackhole.consume(row.getUserName() + " " + row.getAge());
+                }
+            }
+        },
+        SELECT_EXPRESSION {
+            @Override
+            void load(MemberRepository repository, Blackhole blackhole) {
+                for (UserNameWithAge row : repository.findProjectionsByUsername(USER_NAME)) {
+                    blackhole.consume(row.getUserNameWithAge());
+                }
+            }
+        };
+
+        abstract void load(MemberRepository repository, Blackhole blackhole);
+    }
+
+    @Param({"1000", "10000"})
+    int rows;
+
+    @Param
+    Strategy strategy;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            members.add(new Member(USER_NAME, i % 100));
+        }
+        context.getBean(MemberJpaRepository.class).saveAllBatched(members, 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void project(Blackhole blackhole) {
+        transactionTemplate.executeWithoutResult(status -> strategy.load(memberRepository, blackhole));
+    }
+}
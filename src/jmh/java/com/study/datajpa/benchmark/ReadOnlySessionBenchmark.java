@@ -0,0 +1,96 @@
+package com.study.datajpa.benchmark;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.MemberRepository;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 큰 결과를 읽기만 하는 조회의 트랜잭션 종류별 비용
+ * READ_WRITE : 읽기 / 쓰기 트랜잭션 (@Transactional 서비스에서 호출하는 경우). 엔티티마다 스냅샷을 만들고 커밋 시 전부 dirty check
+ * READ_ONLY : 리포지토리의 readOnly 기본값. 읽기 전용 세션이라 스냅샷이 없고 flush 도 하지 않는다
+ * 스냅샷 메모리는 gc 프로파일러의 gc.alloc.rate.norm (B/op), flush 시간은 두 경로의 시간 차이로 본다
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadOnlySessionBenchmark {
+
+    public enum Path {
+        READ_WRITE {
+            @Override
+            Slice<Member> load(MemberRepository repository, TransactionTemplate transactionTemplate, Pageable pageable) {
+                return transactionTemplate.execute(status -> repository.findSliceBy(pageable));
+            }
+        },
+        READ_ONLY {
+            @Override
+            Slice<Member> load(MemberRepository repository, TransactionTemplate transactionTemplate, Pageable pageable) {
+                return repository.findSliceBy(pageable);
+            }
+        };
+
+        abstract Slice<Member> load(MemberRepository repository, TransactionTemplate transactionTemplate, Pageable pageable);
+    }
+
+    @Param({"1000", "10000"})
+    int resultSize;
+
+    @Param
+    Path path;
+
+    ConfigurableApplicationContext context;
+    MemberRepository memberRepository;
+    TransactionTemplate transactionTemplate;
+    Statistics statistics;
+    Pageable pageable;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(Map.of());
+        memberRepository = context.getBean(MemberRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        statistics = BenchmarkContext.statistics(context);
+        pageable = PageRequest.of(0, resultSize, Sort.by("id"));
+
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < resultSize; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        context.getBean(MemberJpaRepository.class).saveAllBatched(members, 1000);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Slice<Member> load(StatementCounter counter) {
+        long begin = counter.begin(statistics);
+        Slice<Member> slice = path.load(memberRepository, transactionTemplate, pageable);
+        counter.end(statistics, begin);
+        return slice;
+    }
+}
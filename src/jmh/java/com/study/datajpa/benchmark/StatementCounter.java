@@ -0,0 +1,35 @@
+package com.study.datajpa.benchmark;
+
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 벤치마크 결과에 실행된 sql 수를 함께 출력한다 (statements / invocations = 1회당 쿼리 수)
+ * 하이버네이트 통계는 전역 값이므로 단일 스레드 벤치마크에서만 사용한다
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class StatementCounter {
+
+    public long statements;
+    public long invocations;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+        invocations = 0;
+    }
+
+    long begin(Statistics statistics) {
+        return statistics.getPrepareStatementCount();
+    }
+
+    void end(Statistics statistics, long begin) {
+        statements += statistics.getPrepareStatementCount() - begin;
+        invocations++;
+    }
+}
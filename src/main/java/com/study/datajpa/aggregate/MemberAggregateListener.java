@@ -0,0 +1,95 @@
+package com.study.datajpa.aggregate;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * save / delete / 변경 감지(changeTeam, 나이 변경) 를 MemberAggregates 에 반영한다
+ * 바뀌기 전의 팀 / 나이가 필요하므로 jpa 엔티티 리스너 대신 이전 상태를 넘겨주는 하이버네이트 이벤트 리스너를 등록한다
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberAggregateListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+    private final MemberAggregates aggregates;
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            aggregates.add(teamId(event.getPersister(), event.getState()), age(event.getPersister(), event.getState()), 1);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // detached 엔티티의 update(merge 없이) 처럼 이전 상태를 모르면 커밋 후 다시 계산한다
+            aggregates.recomputeAfterCommit();
+            return;
+        }
+        Long oldTeamId = teamId(persister, oldState);
+        Long newTeamId = teamId(persister, event.getState());
+        int oldAge = age(persister, oldState);
+        int newAge = age(persister, event.getState());
+        if (oldAge == newAge && Objects.equals(oldTeamId, newTeamId)) {
+            return;
+        }
+        aggregates.add(oldTeamId, oldAge, -1);
+        aggregates.add(newTeamId, newAge, 1);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            aggregates.add(teamId(event.getPersister(), event.getDeletedState()), age(event.getPersister(), event.getDeletedState()), -1);
+        }
+    }
+
+    // 커밋 여부는 MemberAggregates 가 트랜잭션 동기화로 확인한다
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // 프록시여도 id 조회는 초기화하지 않는다
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+        return team == null ? null : ((Team) team).getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getEntityMetamodel().getPropertyIndex("age")];
+    }
+}
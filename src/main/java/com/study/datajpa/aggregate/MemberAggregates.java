@@ -0,0 +1,271 @@
+package com.study.datajpa.aggregate;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 회원 수 / 팀별 회원 수 / 나이별 회원 수 집계를 메모리에 유지한다
+ * count / group by 를 매번 실행하지 않고 읽을 때는 저장된 값만 꺼낸다
+ *
+ * 애플리케이션이 뜰 때 group by 로 한번 만들고, 이후에는 MemberAggregateListener 가 insert / delete / 팀, 나이 변경을
+ * 트랜잭션마다 모아두었다가 커밋된 뒤에 한번에 반영한다 (롤백된 변경은 반영되지 않는다)
+ * jpql 벌크 update 처럼 리스너를 거치지 않는 변경은 @RecomputeMemberAggregates 로 커밋 후 다시 계산한다
+ *
+ * 다시 계산하는 동안 커밋된 변경은 group by 결과에 들어있는지 알 수 없어서, 그대로 교체하면 빠지거나 두번 더해진 채로 남는다
+ * 그래서 Delta 가 등록될 때부터 반영이 끝날 때까지를 진행 중으로 세고, 계산하는 동안 진행 중이거나 반영된 변경이 있었으면
+ * 교체는 하되 stale 로 남겨두고 조용해질 때까지 다시 계산한다
+ */
+@Slf4j
+@Component
+public class MemberAggregates implements DisposableBean {
+
+    // 한번 예약된 다시 계산에서 바로 재시도하는 횟수. 그래도 변경이 겹치면 잠시 뒤에 다시 예약한다
+    private static final int RECOMPUTE_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 200;
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ScheduledExecutorService recomputeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "member-aggregates");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // 다시 계산이 이미 예약되어 있으면 여러 요청을 한번으로 합친다
+    private final AtomicBoolean recomputePending = new AtomicBoolean();
+    // 커밋을 기다리거나 반영 중인 Delta 수, 등록 / 반영된 Delta 수
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong changes = new AtomicLong();
+
+    private volatile Counts counts = new Counts();
+    // 깨끗하게 다시 계산될 때까지 true
+    private volatile boolean stale = true;
+
+    public MemberAggregates(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public long total() {
+        return counts.total.get();
+    }
+
+    public long countWithoutTeam() {
+        return counts.withoutTeam.get();
+    }
+
+    public long countByTeam(Long teamId) {
+        return counts.byTeam.getOrDefault(teamId, 0L);
+    }
+
+    public Map<Long, Long> countsByTeam() {
+        return Collections.unmodifiableMap(new HashMap<>(counts.byTeam));
+    }
+
+    // bucketSize 단위로 묶은 나이 -> 회원 수 (key 는 구간의 시작 나이)
+    public SortedMap<Integer, Long> ageHistogram(int bucketSize) {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("bucketSize must be positive: " + bucketSize);
+        }
+        SortedMap<Integer, Long> histogram = new TreeMap<>();
+        counts.byAge.forEach((age, count) -> histogram.merge(Math.floorDiv(age, bucketSize) * bucketSize, count, Long::sum));
+        return histogram;
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+
+    // 회원 한 명 추가(sign = 1) / 삭제(sign = -1). 트랜잭션 안이면 커밋될 때 반영한다
+    void add(Long teamId, int age, int sign) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Delta delta = new Delta();
+            delta.add(teamId, age, sign);
+            apply(delta);
+            return;
+        }
+        currentDelta().add(teamId, age, sign);
+    }
+
+    // 트랜잭션마다 하나의 Delta 만 등록한다. 엔티티마다 등록하면 대량 변경 시 커밋까지 row 수만큼 쌓인다
+    // REQUIRES_NEW 로 바깥 트랜잭션이 중단되면 동기화 목록도 따로 잡히므로 안쪽 트랜잭션은 자기 Delta 를 갖는다
+    private Delta currentDelta() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Delta delta && delta.owner() == this) {
+                return delta;
+            }
+        }
+        Delta delta = new Delta();
+        inFlight.incrementAndGet();
+        TransactionSynchronizationManager.registerSynchronization(delta);
+        return delta;
+    }
+
+    private synchronized void apply(Delta delta) {
+        changes.incrementAndGet();
+        Counts target = counts;
+        target.total.addAndGet(delta.total);
+        delta.byTeam.forEach((teamId, change) -> {
+            if (teamId == null) {
+                target.withoutTeam.addAndGet(change);
+            } else {
+                target.byTeam.compute(teamId, (key, count) -> nonZero((count == null ? 0 : count) + change));
+            }
+        });
+        delta.byAge.forEach((age, change) ->
+                target.byAge.compute(age, (key, count) -> nonZero((count == null ? 0 : count) + change)));
+    }
+
+    private static Long nonZero(long count) {
+        return count == 0 ? null : count;
+    }
+
+    // 트랜잭션 안이면 커밋된 뒤에, 아니면 바로 다시 계산을 예약한다
+    public void recomputeAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            requestRecompute();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                requestRecompute();
+            }
+        });
+    }
+
+    public void requestRecompute() {
+        stale = true;
+        schedule(0);
+    }
+
+    private void schedule(long delayMillis) {
+        if (recomputePending.compareAndSet(false, true)) {
+            recomputeExecutor.schedule(() -> {
+                // 계산을 시작하기 전에 내려야 계산 중에 들어온 요청이 다시 예약된다
+                recomputePending.set(false);
+                try {
+                    recompute();
+                } catch (RuntimeException e) {
+                    log.warn("member aggregates recompute failed", e);
+                    schedule(RETRY_DELAY_MILLIS);
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // 진행 중인 변경이 없는 동안 계산을 마치면 stale 을 내린다. 끝내 겹치면 stale 인 채로 잠시 뒤에 다시 계산한다
+    @EventListener(ApplicationReadyEvent.class)
+    public void recompute() {
+        stale = true;
+        for (int attempt = 0; attempt < RECOMPUTE_ATTEMPTS; attempt++) {
+            if (recomputeOnce()) {
+                return;
+            }
+        }
+        log.info("member aggregates changed during recompute, retrying in {}ms", RETRY_DELAY_MILLIS);
+        schedule(RETRY_DELAY_MILLIS);
+    }
+
+    // readOnly 트랜잭션은 replica 로 갈 수 있으므로(RoutingDataSourceConfig) 변경이 반영되는 primary 에서 읽는다
+    private boolean recomputeOnce() {
+        long start = System.nanoTime();
+        // 계산 전에 이미 진행 중이던 변경은 커밋이 group by 보다 앞인지 뒤인지 알 수 없다
+        boolean quiet = inFlight.get() == 0;
+        long changesBefore = changes.get();
+        Counts fresh = transactionTemplate.execute(status -> {
+            Counts result = new Counts();
+            for (Object[] row : em.createQuery("select m.team.id, count(m) from Member m group by m.team.id", Object[].class)
+                    .getResultList()) {
+                long count = (Long) row[1];
+                result.total.addAndGet(count);
+                if (row[0] == null) {
+                    result.withoutTeam.set(count);
+                } else {
+                    result.byTeam.put((Long) row[0], count);
+                }
+            }
+            for (Object[] row : em.createQuery("select m.age, count(m) from Member m group by m.age", Object[].class)
+                    .getResultList()) {
+                result.byAge.put((Integer) row[0], (Long) row[1]);
+            }
+            return result;
+        });
+        boolean clean;
+        synchronized (this) {
+            // 교체 뒤에 등록되는 Delta 는 커밋도 group by 뒤이므로 새 값에 더하면 된다
+            clean = quiet && inFlight.get() == 0 && changes.get() == changesBefore;
+            counts = fresh;
+            if (clean) {
+                stale = false;
+            }
+        }
+        log.info("member aggregates computed: {} members, {} teams in {}ms{}",
+                fresh.total.get(), fresh.byTeam.size(), (System.nanoTime() - start) / 1_000_000, clean ? "" : " (stale)");
+        return clean;
+    }
+
+    @Override
+    public void destroy() {
+        recomputeExecutor.shutdownNow();
+    }
+
+    private static final class Counts {
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong withoutTeam = new AtomicLong();
+        final Map<Long, Long> byTeam = new ConcurrentHashMap<>();
+        final Map<Integer, Long> byAge = new ConcurrentHashMap<>();
+    }
+
+    // 한 트랜잭션의 변경량. teamId 가 null 이면 팀이 없는 회원
+    // 만들어질 때부터 트랜잭션이 끝날 때까지 진행 중으로 센다 (커밋 시점의 flush 로 만들어져도 커밋 전이다)
+    private final class Delta implements TransactionSynchronization {
+        long total;
+        final Map<Long, Long> byTeam = new HashMap<>();
+        final Map<Integer, Long> byAge = new HashMap<>();
+
+        Delta() {
+            changes.incrementAndGet();
+        }
+
+        void add(Long teamId, int age, int sign) {
+            total += sign;
+            byTeam.merge(teamId, (long) sign, Long::sum);
+            byAge.merge(age, (long) sign, Long::sum);
+        }
+
+        MemberAggregates owner() {
+            return MemberAggregates.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            inFlight.decrementAndGet();
+        }
+    }
+}
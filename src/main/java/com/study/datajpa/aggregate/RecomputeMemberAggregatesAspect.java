@@ -0,0 +1,28 @@
+package com.study.datajpa.aggregate;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * @RecomputeMemberAggregates 처리
+ * 예외가 나도 일부가 이미 커밋되었을 수 있으므로(chunk 실행) 항상 예약한다. 롤백되었다면 afterCommit 이 호출되지 않는다
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RecomputeMemberAggregatesAspect {
+
+    private final MemberAggregates aggregates;
+
+    @Around("@annotation(com.study.datajpa.aggregate.RecomputeMemberAggregates)")
+    public Object recompute(ProceedingJoinPoint joinPoint) throws Throwable {
+        try {
+            return joinPoint.proceed();
+        } finally {
+            aggregates.recomputeAfterCommit();
+        }
+    }
+}
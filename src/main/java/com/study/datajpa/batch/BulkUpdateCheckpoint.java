@@ -0,0 +1,88 @@
+package com.study.datajpa.batch;
+
+import java.util.BitSet;
+
+/**
+ * 벌크 업데이트 진행 상태
+ * 처음 실행할 때 정한 pk 범위와 chunk 크기를 그대로 유지해야 chunk 경계가 같아지므로 함께 보관한다
+ * 병렬 실행 중 실패하면 완료된 chunk 가 띄엄띄엄 있을 수 있어서 chunk 별로 완료 여부를 기록한다
+ * 값이 +10 처럼 멱등하지 않은 업데이트도 같은 chunk 를 두 번 실행하지 않는다
+ */
+public final class BulkUpdateCheckpoint {
+
+    private final long firstId;
+    private final long lastId;
+    private final int chunkSize;
+    private final int chunkCount;
+    private final BitSet completed;
+
+    BulkUpdateCheckpoint(long firstId, long lastId, int chunkSize) {
+        this(firstId, lastId, chunkSize, new BitSet());
+    }
+
+    private BulkUpdateCheckpoint(long firstId, long lastId, int chunkSize, BitSet completed) {
+        this.firstId = firstId;
+        this.lastId = lastId;
+        this.chunkSize = chunkSize;
+        this.chunkCount = lastId < firstId ? 0 : Math.toIntExact((lastId - firstId) / chunkSize + 1);
+        this.completed = completed;
+    }
+
+    static BulkUpdateCheckpoint empty(int chunkSize) {
+        return new BulkUpdateCheckpoint(0, -1, chunkSize);
+    }
+
+    BulkUpdateCheckpoint complete(int chunk) {
+        BitSet copy = (BitSet) completed.clone();
+        copy.set(chunk);
+        return new BulkUpdateCheckpoint(firstId, lastId, chunkSize, copy);
+    }
+
+    boolean isCompleted(int chunk) {
+        return completed.get(chunk);
+    }
+
+    long chunkFromId(int chunk) {
+        return firstId + (long) chunk * chunkSize;
+    }
+
+    long chunkToId(int chunk) {
+        return Math.min(chunkFromId(chunk) + chunkSize - 1, lastId);
+    }
+
+    public long getFirstId() {
+        return firstId;
+    }
+
+    public long getLastId() {
+        return lastId;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    public int getCompletedChunks() {
+        return completed.cardinality();
+    }
+
+    public boolean isFinished() {
+        return getCompletedChunks() == chunkCount;
+    }
+
+    // 이 id 까지는 모두 커밋되었다 (아직 없으면 firstId - 1)
+    public long getWatermarkId() {
+        int firstPending = completed.nextClearBit(0);
+        return firstPending >= chunkCount ? lastId : chunkFromId(firstPending) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkUpdateCheckpoint(ids=" + firstId + ".." + lastId + ", chunkSize=" + chunkSize
+                + ", completed=" + getCompletedChunks() + "/" + chunkCount + ", watermarkId=" + getWatermarkId() + ")";
+    }
+}
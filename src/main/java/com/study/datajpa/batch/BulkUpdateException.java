@@ -0,0 +1,19 @@
+package com.study.datajpa.batch;
+
+/**
+ * chunk 실행이 실패해서 중단된 경우
+ * 실패 전에 커밋된 chunk 는 그대로 남아있으므로 getProgress().getCheckpoint() 로 이어서 실행한다
+ */
+public class BulkUpdateException extends RuntimeException {
+
+    private final BulkUpdateProgress progress;
+
+    public BulkUpdateException(BulkUpdateProgress progress, Throwable cause) {
+        super("bulk update '" + progress.getName() + "' stopped at " + progress.getCheckpoint(), cause);
+        this.progress = progress;
+    }
+
+    public BulkUpdateProgress getProgress() {
+        return progress;
+    }
+}
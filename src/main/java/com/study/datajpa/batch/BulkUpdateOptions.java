@@ -0,0 +1,28 @@
+package com.study.datajpa.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+import java.time.Duration;
+
+/**
+ * chunkSize : 한 트랜잭션에서 수정할 pk 범위의 크기
+ * parallelism : 동시에 chunk 를 실행할 작업 스레드 수. 1 이면 호출한 스레드에서 순서대로 실행한다
+ * pauseBetweenChunks : 작업 스레드가 chunk 사이에 쉬는 시간. 온라인 트래픽에 db 를 양보하기 위함
+ * resumeFrom : 이전 실행이 실패했을 때 받은 checkpoint. 이미 커밋된 chunk 는 건너뛴다
+ */
+@Getter
+@With
+@AllArgsConstructor
+public class BulkUpdateOptions {
+
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration pauseBetweenChunks;
+    private final BulkUpdateCheckpoint resumeFrom;
+
+    public static BulkUpdateOptions defaults() {
+        return new BulkUpdateOptions(1000, 1, Duration.ZERO, null);
+    }
+}
@@ -0,0 +1,15 @@
+package com.study.datajpa.batch;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// rowsUpdated 는 이번 실행에서 수정한 row 수 (이어서 실행한 경우 이전 실행분은 포함하지 않는다)
+@Getter
+@ToString
+@AllArgsConstructor
+public class BulkUpdateProgress {
+    private final String name;
+    private final long rowsUpdated;
+    private final BulkUpdateCheckpoint checkpoint;
+}
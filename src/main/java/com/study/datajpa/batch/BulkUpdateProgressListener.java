@@ -0,0 +1,15 @@
+package com.study.datajpa.batch;
+
+/**
+ * chunk 하나가 커밋될 때마다 호출된다
+ * 병렬 실행이어도 한 번에 하나씩 호출되므로 구현체를 동기화할 필요는 없다
+ * 예외를 던지면 남은 chunk 를 실행하지 않고 중단한다
+ */
+@FunctionalInterface
+public interface BulkUpdateProgressListener {
+
+    BulkUpdateProgressListener NONE = progress -> {
+    };
+
+    void onChunkCommitted(BulkUpdateProgress progress);
+}
@@ -0,0 +1,203 @@
+package com.study.datajpa.batch;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 하나의 update 문 대신 pk 범위(chunk) 단위로 나눠서 각각 별도 트랜잭션으로 커밋한다
+ * row lock 을 짧게 잡고 undo 로그도 chunk 크기만큼만 쌓이므로 운영 중에도 실행할 수 있다
+ *
+ * chunk 는 REQUIRES_NEW 로 실행되므로 같은 row 를 수정 중인 트랜잭션 안에서 호출하면 lock 을 기다리게 된다
+ * 트랜잭션 밖에서 호출하는 것을 권장한다
+ */
+@Slf4j
+@Component
+public class ChunkedBulkUpdater {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate chunkTransaction;
+    private final TransactionTemplate readTransaction;
+
+    public ChunkedBulkUpdater(EntityManager em, EntityManagerFactory emf, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.emf = emf;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+    }
+
+    public BulkUpdateProgress execute(ChunkedUpdate update, BulkUpdateOptions options, BulkUpdateProgressListener listener) {
+        BulkUpdateCheckpoint checkpoint = options.getResumeFrom() != null
+                ? options.getResumeFrom()
+                : plan(update, options.getChunkSize());
+        Run run = new Run(update, options, listener, checkpoint);
+        try {
+            run.start();
+        } finally {
+            // 일부만 커밋되고 실패했어도 커밋된 chunk 는 반영되었으므로 항상 정리한다
+            invalidate(update.getEntityClass(), checkpoint);
+        }
+        BulkUpdateProgress progress = run.progress();
+        if (run.failure != null) {
+            throw new BulkUpdateException(progress, run.failure);
+        }
+        log.info("bulk update '{}' finished: rows={}, {}", update.getName(), progress.getRowsUpdated(), progress.getCheckpoint());
+        return progress;
+    }
+
+    private BulkUpdateCheckpoint plan(ChunkedUpdate update, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        Object[] bounds = readTransaction.execute(status -> {
+            Query query = em.createQuery(update.getBoundsQuery());
+            update.getParameters().forEach(query::setParameter);
+            return (Object[]) query.getSingleResult();
+        });
+        if (bounds == null || bounds[0] == null) {
+            return BulkUpdateCheckpoint.empty(chunkSize); // 대상 row 가 없다
+        }
+        return new BulkUpdateCheckpoint(((Number) bounds[0]).longValue(), ((Number) bounds[1]).longValue(), chunkSize);
+    }
+
+    private int executeChunk(ChunkedUpdate update, long fromId, long toId) {
+        Integer updated = chunkTransaction.execute(status -> {
+            Query query = em.createQuery(update.getUpdateQuery());
+            update.getParameters().forEach(query::setParameter);
+            return query.setParameter(ChunkedUpdate.FROM_ID, fromId)
+                    .setParameter(ChunkedUpdate.TO_ID, toId)
+                    .executeUpdate();
+        });
+        return updated == null ? 0 : updated;
+    }
+
+    /**
+     * 벌크 업데이트는 영속성 컨텍스트와 2차 캐시를 거치지 않으므로 직접 정리한다
+     * 2차 캐시는 해당 엔티티 region 만, 호출한 쪽 영속성 컨텍스트는 수정 범위에 있는 엔티티만 detach 한다
+     */
+    private void invalidate(Class<?> entityClass, BulkUpdateCheckpoint checkpoint) {
+        emf.getCache().evict(entityClass);
+
+        EntityManager current = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (current == null || checkpoint.getChunkCount() == 0) {
+            return;
+        }
+        SessionImplementor session = current.unwrap(SessionImplementor.class);
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : session.getPersistenceContextInternal().reentrantSafeEntityEntries()) {
+            if (entityClass.isInstance(entry.getKey())
+                    && entry.getValue().getId() instanceof Number id
+                    && id.longValue() >= checkpoint.getFirstId()
+                    && id.longValue() <= checkpoint.getLastId()) {
+                stale.add(entry.getKey());
+            }
+        }
+        stale.forEach(current::detach);
+    }
+
+    // 한 번의 실행 상태. chunk 번호를 작업 스레드들이 나눠 가져간다
+    private final class Run {
+
+        private final ChunkedUpdate update;
+        private final BulkUpdateOptions options;
+        private final BulkUpdateProgressListener listener;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private BulkUpdateCheckpoint checkpoint;
+        private long rowsUpdated;
+        private volatile Throwable failure;
+
+        private Run(ChunkedUpdate update, BulkUpdateOptions options, BulkUpdateProgressListener listener,
+                    BulkUpdateCheckpoint checkpoint) {
+            this.update = update;
+            this.options = options;
+            this.listener = listener;
+            this.checkpoint = checkpoint;
+        }
+
+        private void start() {
+            int workers = Math.max(1, Math.min(options.getParallelism(), checkpoint.getChunkCount()));
+            if (workers == 1) {
+                work();
+                return;
+            }
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int i = 0; i < workers; i++) {
+                    futures.add(executor.submit(this::work));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (Exception e) {
+                fail(e);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        private void work() {
+            int chunk;
+            while (failure == null && (chunk = nextChunk.getAndIncrement()) < checkpoint.getChunkCount()) {
+                if (checkpoint.isCompleted(chunk)) {
+                    continue;
+                }
+                try {
+                    int updated = executeChunk(update, checkpoint.chunkFromId(chunk), checkpoint.chunkToId(chunk));
+                    committed(chunk, updated);
+                    pause();
+                } catch (Throwable e) {
+                    fail(e);
+                }
+            }
+        }
+
+        // 진행 상태 갱신과 listener 호출을 한 스레드씩 처리한다
+        private synchronized void committed(int chunk, int updated) {
+            checkpoint = checkpoint.complete(chunk);
+            rowsUpdated += updated;
+            listener.onChunkCommitted(progress());
+        }
+
+        private synchronized BulkUpdateProgress progress() {
+            return new BulkUpdateProgress(update.getName(), rowsUpdated, checkpoint);
+        }
+
+        private void pause() throws InterruptedException {
+            Duration pause = options.getPauseBetweenChunks();
+            if (pause != null && !pause.isZero() && failure == null) {
+                Thread.sleep(pause.toMillis());
+            }
+        }
+
+        private synchronized void fail(Throwable e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+}
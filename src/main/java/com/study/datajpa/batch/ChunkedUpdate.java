@@ -0,0 +1,25 @@
+package com.study.datajpa.batch;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * pk 범위로 나눠서 실행할 벌크 업데이트 정의
+ * boundsQuery 는 대상 row 의 (min(id), max(id)) 를 조회하고
+ * updateQuery 는 :fromId ~ :toId 범위 조건을 반드시 포함해야 한다
+ */
+@Getter
+@RequiredArgsConstructor
+public class ChunkedUpdate {
+
+    public static final String FROM_ID = "fromId";
+    public static final String TO_ID = "toId";
+
+    private final String name;
+    private final Class<?> entityClass;
+    private final String boundsQuery;
+    private final String updateQuery;
+    private final Map<String, ?> parameters;
+}
@@ -0,0 +1,44 @@
+package com.study.datajpa.batch;
+
+import com.study.datajpa.aggregate.MemberAggregates;
+import com.study.datajpa.cache.MemberCacheNames;
+import com.study.datajpa.entity.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * MemberRepository.bulkAgePlus / MemberJpaRepository.bulkAge 의 chunk 실행 버전
+ * 결과는 같지만 전체 테이블을 하나의 update 문으로 잠그지 않는다
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberBulkUpdater {
+
+    private final ChunkedBulkUpdater chunkedBulkUpdater;
+    private final CacheManager cacheManager;
+    private final MemberAggregates memberAggregates;
+
+    public BulkUpdateProgress bulkAgePlus(int age, BulkUpdateOptions options, BulkUpdateProgressListener listener) {
+        ChunkedUpdate update = new ChunkedUpdate(
+                "bulkAgePlus(" + age + ")",
+                Member.class,
+                "select min(m.id), max(m.id) from Member m where m.age >= :age",
+                "update Member m set m.age = m.age + 10, m.version = m.version + 1, m.lastModifiedDate = local datetime"
+                        + " where m.id between :fromId and :toId and m.age >= :age",
+                Map.of("age", age));
+        try {
+            return chunkedBulkUpdater.execute(update, options, listener);
+        } finally {
+            // 벌크 연산은 엔티티 리스너가 동작하지 않으므로 near cache 도 직접 비워주고 집계도 다시 계산한다
+            Cache cache = cacheManager.getCache(MemberCacheNames.READ_MODEL);
+            if (cache != null) {
+                cache.clear();
+            }
+            memberAggregates.requestRecompute();
+        }
+    }
+}
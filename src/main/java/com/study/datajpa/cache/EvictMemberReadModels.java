@@ -0,0 +1,17 @@
+package com.study.datajpa.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔티티 리스너를 거치지 않는 벌크 연산(jpql update / delete) 에 붙인다
+ * 메소드가 끝나면 near cache(읽기 모델) 를 비우고, 트랜잭션 안이면 트랜잭션이 끝난 뒤에 한번 더 비운다
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface EvictMemberReadModels {
+}
@@ -0,0 +1,49 @@
+package com.study.datajpa.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * @EvictMemberReadModels 처리
+ * @CacheEvict 는 커밋 전에 비우므로 그 사이 다른 요청이 이전 값을 다시 캐시하면 ttl 동안 남는다
+ * MemberCacheEvictListener 와 같이 트랜잭션이 끝난 뒤 한번 더 비운다
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class EvictMemberReadModelsAspect {
+
+    private final CacheManager cacheManager;
+
+    @Around("@annotation(com.study.datajpa.cache.EvictMemberReadModels)")
+    public Object evict(ProceedingJoinPoint joinPoint) throws Throwable {
+        try {
+            return joinPoint.proceed();
+        } finally {
+            clear();
+        }
+    }
+
+    private void clear() {
+        Cache cache = cacheManager.getCache(MemberCacheNames.READ_MODEL);
+        if (cache == null) {
+            return;
+        }
+        cache.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.clear();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.study.datajpa.cache;
+
+import com.study.datajpa.entity.Member;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Member 가 수정 / 삭제되면 near cache 에서 제거한다
+ * save / delete 뿐 아니라 변경 감지(dirty checking) 로 인한 update 도 여기서 잡힌다
+ * 하이버네이트가 스프링 빈 컨테이너를 통해 생성하기 때문에 생성자 주입이 가능하다
+ */
+public class MemberCacheEvictListener {
+
+    private final CacheManager cacheManager;
+
+    public MemberCacheEvictListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Member member) {
+        Cache cache = cacheManager.getCache(MemberCacheNames.READ_MODEL);
+        if (cache == null) {
+            return;
+        }
+        Long id = member.getId();
+        cache.evict(id);
+
+        // flush 시점과 커밋 사이에 다른 요청이 이전 값을 다시 캐시할 수 있으므로 트랜잭션이 끝난 뒤 한번 더 지운다
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.study.datajpa.cache;
+
+public final class MemberCacheNames {
+
+    // 회원 id -> MemberReadModel
+    public static final String READ_MODEL = "memberReadModel";
+
+    private MemberCacheNames() {
+    }
+}
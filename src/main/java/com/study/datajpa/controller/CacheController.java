@@ -0,0 +1,69 @@
+package com.study.datajpa.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.study.datajpa.dto.CacheRegionStatsDto;
+import com.study.datajpa.dto.NearCacheStatsDto;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class CacheController {
+
+    private final EntityManagerFactory emf;
+    private final CacheManager cacheManager;
+
+    // 2차 캐시 / 쿼리 캐시 region 별 통계
+    @GetMapping("/caches")
+    public List<CacheRegionStatsDto> regions() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        return Arrays.stream(statistics.getSecondLevelCacheRegionNames())
+                .sorted()
+                .map(statistics::getCacheRegionStatistics)
+                .map(this::toDto)
+                .toList();
+    }
+
+    // 애플리케이션 near cache (caffeine) 통계
+    @GetMapping("/caches/near")
+    public List<NearCacheStatsDto> nearCaches() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(CaffeineCache.class::isInstance)
+                .map(CaffeineCache.class::cast)
+                .map(this::toDto)
+                .toList();
+    }
+
+    private NearCacheStatsDto toDto(CaffeineCache cache) {
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> nativeCache = cache.getNativeCache();
+        CacheStats stats = nativeCache.stats();
+        return new NearCacheStatsDto(
+                cache.getName(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.evictionCount(),
+                nativeCache.estimatedSize());
+    }
+
+    private CacheRegionStatsDto toDto(CacheRegionStatistics region) {
+        return new CacheRegionStatsDto(
+                region.getRegionName(),
+                region.getHitCount(),
+                region.getMissCount(),
+                region.getPutCount(),
+                Math.max(region.getElementCountInMemory(), -1)); // jcache 는 크기를 제공하지 않아 Long.MIN_VALUE 가 온다
+    }
+}
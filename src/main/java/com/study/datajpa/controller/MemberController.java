@@ -1,47 +1,156 @@
 package com.study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.datajpa.aggregate.MemberAggregates;
+import com.study.datajpa.dto.CursorSlice;
 import com.study.datajpa.dto.MemberDto;
+import com.study.datajpa.dto.MemberListVersion;
+import com.study.datajpa.dto.MemberReadModel;
+import com.study.datajpa.dto.MemberStatsDto;
 import com.study.datajpa.entity.Member;
+import com.study.datajpa.monitoring.SqlBudget;
+import com.study.datajpa.repository.CountMode;
 import com.study.datajpa.repository.MemberRepository;
-import jakarta.annotation.PostConstruct;
+import com.study.datajpa.repository.PageTotalCounter;
+import com.study.datajpa.search.MemberNameIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_CURSOR_SIZE = 200; // pageable max-page-size 와 맞춤
+
     private final MemberRepository memberRepository;
+    private final PageTotalCounter pageTotalCounter;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final MemberNameIndex memberNameIndex;
+    private final MemberAggregates memberAggregates;
 
+    // 엔티티 전체를 조회하지 않고 near cache 의 읽기 모델에서 이름만 꺼낸다
+    // If-None-Match / If-Modified-Since 가 읽기 모델의 버전 / 수정 시각과 같으면 본문 없이 304
+    @SqlBudget(maxSelects = 1)
     @GetMapping("/members/{id}")
-    public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(id).orElseThrow(() -> new NoSuchElementException());
+    public String findMember(@PathVariable("id") Long id, WebRequest request) {
+        MemberReadModel member = memberRepository.findReadModelById(id).orElseThrow(() -> new NoSuchElementException());
+        if (request.checkNotModified(member.etag(), member.lastModifiedMillis())) {
+            return null;
+        }
         return member.getUserName();
     }
 
+    // 도메인 클래스 컨버터(@PathVariable Member) 는 매번 엔티티를 조회하므로 id 로 받아서 캐시를 사용한다
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) {
-        return member.getUserName();
+    public String findMember2(@PathVariable("id") Long id, WebRequest request) {
+        return findMember(id, request);
     }
 
+    // 엔티티 대신 DTO 로 바로 조회한다 (teamName 포함)
     // pageable 개별 설정
+    // count=CACHED | APPROXIMATE 로 전체 개수 계산 방식을 고를 수 있다 (기본은 매번 count 쿼리)
+    // 먼저 변경 확인용 집계 한 줄만 조회해서 바뀌지 않았으면 목록을 조회하지 않고 304 를 돌려준다
+    // 회원 수는 MemberAggregates 에서 꺼내므로 EXACT 도 count 쿼리를 실행하지 않는다
+    // 다시 계산 중이라 회원 수가 어긋날 수 있으면 ETag 없이 응답하고 EXACT 는 count 쿼리로 센다
+    // 변경 확인을 목록보다 먼저 읽으므로 그 사이에 바뀌었다면 ETag 가 이미 달라져 있어서 다음 요청에서 다시 받는다
+    @SqlBudget(maxSelects = 3) // 변경 확인 + content (+ 다시 계산 중인 EXACT 의 count)
     @GetMapping("/members")
-    public Page<MemberDto> list(@PageableDefault(size = 5, sort = "userName b") Pageable pageable) {
-        return memberRepository.findAll(pageable).map(MemberDto::new);
+    public Page<MemberDto> list(@PageableDefault(size = 5, sort = "userName") Pageable pageable,
+                                @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode,
+                                WebRequest request) {
+        MemberListVersion version = memberRepository.findListVersion();
+        long total = memberAggregates.total();
+        boolean stale = memberAggregates.isStale();
+        if (!stale && request.checkNotModified(version.etag(total))) {
+            return null;
+        }
+        Slice<MemberDto> slice = memberRepository.findMemberDtoSlice(pageable);
+        return pageTotalCounter.toPage(slice, countMode, "member", stale ? memberRepository::count : () -> total);
     }
 
-    @PostConstruct
-    public void init() {
+    // 커서 기반 조회. 응답의 nextCursor 를 다음 요청의 cursor 로 넘기면 된다
+    // totalElements 가 필요하면 위의 /members 를 사용
+    @SqlBudget(maxSelects = 1)
+    @GetMapping("/members/cursor")
+    public CursorSlice<MemberDto> cursorList(@RequestParam(value = "cursor", required = false) String cursor,
+                                             @RequestParam(value = "size", defaultValue = "10") int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_CURSOR_SIZE);
+        return memberRepository.findAllWithCursor(cursor, limit).map(MemberDto::new);
+    }
+
+    // 이름 부분 검색. 색인에서 id 를 찾고 db 는 in 쿼리 한번으로 조회한다
+    // 색인에 남아있지만 db 에서 지워진 회원은 결과에서 빠진다
+    @SqlBudget(maxSelects = 1)
+    @GetMapping("/members/search")
+    public List<MemberDto> search(@RequestParam("q") String query,
+                                  @RequestParam(value = "size", defaultValue = "20") int size) {
+        List<Long> ids = memberNameIndex.search(query, Math.min(Math.max(size, 1), MAX_CURSOR_SIZE));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, MemberDto> byId = memberRepository.findMemberDtosByIds(ids).stream()
+                .collect(Collectors.toMap(MemberDto::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    // 회원 수 / 팀별 회원 수 / 나이 분포. 메모리 집계만 읽으므로 count / group by 쿼리가 없다
+    @SqlBudget(maxStatements = 0)
+    @GetMapping("/members/stats")
+    public MemberStatsDto stats(@RequestParam(value = "bucket", defaultValue = "10") int bucket) {
+        int bucketSize = Math.max(bucket, 1);
+        return new MemberStatsDto(
+                memberAggregates.total(),
+                memberRepository.countMembersOfTeam(null),
+                memberRepository.countMembersByTeam(),
+                bucketSize,
+                memberRepository.ageHistogram(bucketSize),
+                memberAggregates.isStale());
+    }
+
+    // 전체 회원을 한 줄에 하나씩 json 으로 내려준다 (NDJSON)
+    // List 로 모으지 않고 읽는 즉시 응답에 쓰기 때문에 회원 수와 상관없이 메모리 사용량이 일정하다
+    @GetMapping(value = "/members/export", produces = "application/x-ndjson")
+    public StreamingResponseBody export(@RequestParam(value = "fetchSize", defaultValue = "500") int fetchSize) {
+        // 응답은 별도 스레드에서 쓰여지므로 그 안에서 트랜잭션을 연다
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        return out -> readOnly.executeWithoutResult(status -> {
+            try (Stream<Member> members = memberRepository.streamAll(Math.max(fetchSize, 1))) {
+                members.forEach(member -> writeLine(out, new MemberDto(member)));
+            }
+        });
+    }
 
-        for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("user" + i, i));
+    private void writeLine(OutputStream out, MemberDto dto) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(dto));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 }
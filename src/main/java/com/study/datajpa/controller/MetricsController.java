@@ -0,0 +1,114 @@
+package com.study.datajpa.controller;
+
+import com.study.datajpa.dto.EntityStatsDto;
+import com.study.datajpa.dto.QueryStatsDto;
+import com.study.datajpa.dto.RepositoryMethodStatsDto;
+import com.study.datajpa.dto.SlowQueryStatsDto;
+import com.study.datajpa.monitoring.RepositoryMetrics;
+import com.study.datajpa.monitoring.SlowQueryLog;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class MetricsController {
+
+    private final RepositoryMetrics repositoryMetrics;
+    private final EntityManagerFactory emf;
+    private final SlowQueryLog slowQueryLog;
+
+    // 애플리케이션 시작(또는 마지막 reset) 이후 누적된 repository 메소드별 지표
+    @GetMapping("/metrics/repositories")
+    public List<RepositoryMethodStatsDto> repositories() {
+        return repositoryMetrics.snapshot(false);
+    }
+
+    // 지금까지의 지표를 반환하고 0 으로 되돌린다. 주기적으로 호출하면 구간별 지표가 된다
+    @PostMapping("/metrics/repositories/reset")
+    public List<RepositoryMethodStatsDto> reset() {
+        return repositoryMetrics.snapshot(true);
+    }
+
+    // 하이버네이트 조회별 통계. 전체 실행 시간이 큰 순서
+    // 조회 문자열은 hibernate.statistics.query_max_size(기본 5000) 개까지만 보관된다
+    @GetMapping("/metrics/queries")
+    public List<QueryStatsDto> queries(@RequestParam(value = "limit", defaultValue = "50") int limit) {
+        Statistics statistics = statistics();
+        return Arrays.stream(statistics.getQueries())
+                .map(query -> toDto(query, statistics.getQueryStatistics(query)))
+                .filter(stats -> stats.getExecutions() > 0)
+                .sorted(Comparator.comparingLong(QueryStatsDto::getTotalMillis).reversed())
+                .limit(Math.max(limit, 1))
+                .toList();
+    }
+
+    // 엔티티별 로딩 / 변경 / 2차 캐시 통계
+    @GetMapping("/metrics/entities")
+    public List<EntityStatsDto> entities() {
+        Statistics statistics = statistics();
+        return Arrays.stream(statistics.getEntityNames())
+                .sorted()
+                .map(name -> toDto(name, statistics.getEntityStatistics(name)))
+                .toList();
+    }
+
+    // 느린 조회 로그 상태 (기준 시간을 넘은 수 / 로그로 남긴 수 / 버린 수)
+    @GetMapping("/metrics/slow-queries")
+    public SlowQueryStatsDto slowQueries() {
+        return slowQueryLog.stats();
+    }
+
+    private Statistics statistics() {
+        return emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private QueryStatsDto toDto(String query, QueryStatistics stats) {
+        long executions = stats.getExecutionCount();
+        return new QueryStatsDto(
+                query,
+                executions,
+                stats.getExecutionTotalTime(),
+                stats.getExecutionAvgTimeAsDouble(),
+                stats.getExecutionMaxTime(),
+                stats.getExecutionRowCount(),
+                executions == 0 ? 0 : (double) stats.getExecutionRowCount() / executions,
+                stats.getCacheHitCount(),
+                stats.getCacheMissCount(),
+                hitRatio(stats.getCacheHitCount(), stats.getCacheMissCount()));
+    }
+
+    private EntityStatsDto toDto(String entityName, EntityStatistics stats) {
+        boolean cached = stats.getCacheRegionName() != null;
+        long hits = cached ? stats.getCacheHitCount() : -1;
+        long misses = cached ? stats.getCacheMissCount() : -1;
+        return new EntityStatsDto(
+                entityName.substring(entityName.lastIndexOf('.') + 1),
+                stats.getLoadCount(),
+                stats.getFetchCount(),
+                stats.getInsertCount(),
+                stats.getUpdateCount(),
+                stats.getDeleteCount(),
+                stats.getOptimisticFailureCount(),
+                hits,
+                misses,
+                cached ? hitRatio(hits, misses) : -1);
+    }
+
+    // 조회한 적이 없으면 -1
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? -1 : (double) hits / total;
+    }
+}
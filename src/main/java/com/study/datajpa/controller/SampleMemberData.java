@@ -0,0 +1,34 @@
+package com.study.datajpa.controller;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * api 를 바로 호출해볼 수 있도록 시작할 때 팀 없는 회원 100명(user0 ~ user99) 을 저장한다
+ * 벤치마크처럼 직접 만든 데이터만 있어야 하는 곳에서는 sample-data.enabled=false 로 끈다
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "sample-data", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SampleMemberData {
+
+    private static final int INIT_BATCH_SIZE = 50;
+
+    private final MemberRepository memberRepository;
+
+    @PostConstruct
+    public void init() {
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            members.add(new Member("user" + i, i));
+        }
+        memberRepository.saveAllBatched(members, INIT_BATCH_SIZE);
+    }
+}
@@ -0,0 +1,16 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class CacheRegionStatsDto {
+    private String region;
+    private long hitCount;
+    private long missCount;
+    private long putCount;
+    private long elementCount; // 지원하지 않는 provider 면 -1
+}
@@ -0,0 +1,29 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 커서(keyset) 기반 조회 결과
+ * count 쿼리 없이 다음 조회에 사용할 토큰(nextCursor)만 함께 내려준다
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CursorSlice<T> {
+
+    private final List<T> content;
+    private final String nextCursor; // 마지막 페이지면 null
+    private final boolean hasNext;
+
+    // Page.map 처럼 DTO 변환을 편하게 하기 위함
+    public <R> CursorSlice<R> map(Function<? super T, ? extends R> converter) {
+        List<R> converted = content.stream().map(converter).collect(Collectors.toList());
+        return new CursorSlice<>(converted, nextCursor, hasNext);
+    }
+}
@@ -0,0 +1,21 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class EntityStatsDto {
+    private String entity;
+    private long loads;    // db 에서 읽어서 만든 수
+    private long fetches;  // 지연 로딩 / 연관관계로 따로 조회한 수
+    private long inserts;
+    private long updates;
+    private long deletes;
+    private long optimisticFailures;
+    private long cacheHitCount;  // 2차 캐시를 사용하지 않으면 -1
+    private long cacheMissCount;
+    private double cacheHitRatio; // 2차 캐시를 사용하지 않거나 조회가 없었으면 -1
+}
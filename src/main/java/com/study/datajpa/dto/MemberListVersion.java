@@ -0,0 +1,33 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 회원 목록 응답의 변경 확인용 값 (MemberRepository.findListVersion)
+ * 어느 회원 / 팀이든 바뀌면 모든 페이지의 ETag 가 바뀐다. 페이지 내용을 읽지 않고 확인하기 위한 절충이다
+ * 회원 수는 count 쿼리 대신 MemberAggregates 에서 받아서 ETag 를 만들 때 넣는다
+ * 삭제는 수정 시각을 남기지 않으므로 Last-Modified 는 만들지 않는다 (If-Modified-Since 만 보내면 삭제 뒤에도 304 가 된다)
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MemberListVersion {
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final LocalDateTime lastModifiedDate;   // 회원이 없으면 null
+    private final Long teamCount;
+    private final Long teamVersions;                // 팀 버전의 합
+
+    // 같은 초에 바뀐 경우도 구분되도록 마이크로초까지 넣는다
+    public String etag(long memberCount) {
+        long micros = lastModifiedDate == null ? 0 : ChronoUnit.MICROS.between(EPOCH, lastModifiedDate);
+        return "W/\"" + Long.toHexString(memberCount) + "-" + Long.toHexString(micros)
+                + "-" + Long.toHexString(teamCount) + "-" + Long.toHexString(teamVersions) + "\"";
+    }
+}
@@ -0,0 +1,32 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 단건 조회 api 용 가벼운 읽기 모델
+ * 영속성 컨텍스트와 무관한 불변 객체라 캐시에 그대로 올려둘 수 있다
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class MemberReadModel {
+    private final Long id;
+    private final String userName;
+    private final Long version;
+    private final LocalDateTime lastModifiedDate;
+
+    // 같은 url 끼리 비교하므로 버전만으로 충분하다. 응답 바이트가 아니라 데이터 기준이라 약한 ETag
+    public String etag() {
+        return "W/\"" + version + "\"";
+    }
+
+    // 수정 시각이 없으면 -1 (Last-Modified 없이 ETag 만 비교)
+    public long lastModifiedMillis() {
+        return lastModifiedDate == null ? -1 : lastModifiedDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
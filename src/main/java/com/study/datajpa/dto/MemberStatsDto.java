@@ -0,0 +1,20 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Map;
+import java.util.SortedMap;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class MemberStatsDto {
+    private long total;
+    private long withoutTeam;
+    private Map<Long, Long> byTeam;           // 팀 id -> 회원 수
+    private int ageBucketSize;
+    private SortedMap<Integer, Long> byAge;   // 나이 구간의 시작 -> 회원 수
+    private boolean stale;                    // 벌크 연산 후 다시 계산 중
+}
@@ -0,0 +1,22 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// 시간은 ms 단위 (하이버네이트 통계 단위)
+@Getter
+@ToString
+@AllArgsConstructor
+public class QueryStatsDto {
+    private String query;
+    private long executions;
+    private long totalMillis;
+    private double avgMillis;
+    private long maxMillis;
+    private long rows;
+    private double rowsPerExecution;
+    private long cacheHitCount;
+    private long cacheMissCount;
+    private double cacheHitRatio; // 쿼리 캐시 조회가 없었으면 -1
+}
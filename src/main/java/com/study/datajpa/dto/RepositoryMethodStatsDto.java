@@ -0,0 +1,25 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+// 응답 시간은 마이크로초 단위
+@Getter
+@ToString
+@AllArgsConstructor
+public class RepositoryMethodStatsDto {
+    private String repository;
+    private String method;
+    private long calls;
+    private long errors;
+    private double meanMicros;
+    private double p50Micros;
+    private double p99Micros;
+    private double p999Micros;
+    private double maxMicros;
+    private long rows;
+    private double rowsPerCall;
+    private long statements;
+    private double statementsPerCall;
+}
@@ -0,0 +1,18 @@
+package com.study.datajpa.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+@AllArgsConstructor
+public class SlowQueryStatsDto {
+    private long thresholdMillis;
+    private double sampleRate;
+    private long slowQueries;  // 기준 시간을 넘은 조회 수
+    private long logged;
+    private long sampledOut;   // 샘플링으로 남기지 않은 수
+    private long dropped;      // 큐가 가득 차서 버린 수
+    private long queued;
+}
@@ -1,5 +1,6 @@
 package com.study.datajpa.entity;
 
+import com.study.datajpa.id.MonotonicUlid;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
@@ -37,6 +38,11 @@ public class Item implements Persistable<String> {
         this.id = id;
     }
 
+    // 무작위 문자열 id 는 pk 인덱스 곳곳에 insert 되어 페이지 분할이 잦아지므로 시간 순 id 를 사용한다
+    public static Item create() {
+        return new Item(MonotonicUlid.next());
+    }
+
     @Override
     public String getId() {
         return id;
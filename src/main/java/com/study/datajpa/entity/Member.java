@@ -1,7 +1,13 @@
 package com.study.datajpa.entity;
 
+import com.study.datajpa.cache.MemberCacheEvictListener;
+import com.study.datajpa.persistence.LazyLoadingSupport;
+import com.study.datajpa.search.MemberNameIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Getter
@@ -14,15 +20,37 @@ import lombok.*;
         query = "select m from Member m where userName = :userName"
 )
 @NamedEntityGraph(name = "Member.all", attributeNodes = @NamedAttributeNode("team"))
+// 커서(keyset) 페이징의 정렬 기준 (userName, id) 인덱스
+// 목록 응답의 ETag 에 쓰는 max(lastModifiedDate) 를 테이블 전체를 읽지 않고 구하도록 인덱스를 둔다
+@Table(indexes = {
+        @Index(name = "idx_member_user_name_id", columnList = "userName, member_id"),
+        @Index(name = "idx_member_age_user_name_id", columnList = "age, userName, member_id"),
+        @Index(name = "idx_member_last_modified_date", columnList = "lastModifiedDate")
+})
+// 쿼리 캐시는 결과 id 만 저장하므로 엔티티도 캐시에 있어야 쿼리 캐시가 의미있다
+// 벌크 update(jpql) 는 하이버네이트가 이 region 과 쿼리 캐시를 자동으로 무효화한다
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "member")
+@EntityListeners({MemberCacheEvictListener.class, MemberNameIndexListener.class})
 public class Member extends BaseEntity{
 
+    // pooled 시퀀스: allocationSize 만큼 id 를 한번에 받아와서 insert 마다 시퀀스를 조회하지 않는다
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "member_seq_generator")
+    @SequenceGenerator(name = "member_seq_generator", sequenceName = "member_seq", allocationSize = 50)
     @Column(name = "member_id")
     private Long id;
     private String userName;
     private int age;
 
+    // 낙관적 락. update 시 where version = ? 로 확인하고 1 증가시킨다
+    // 다른 트랜잭션이 먼저 수정했다면 ObjectOptimisticLockingFailureException (@RetryOnOptimisticLock 로 재시도)
+    // jpql 벌크 update 는 버전을 올리지 않으므로 set 절에 m.version = m.version + 1 을 직접 넣는다
+    // (update versioned 는 hibernate 6.1 에서 assertion 오류가 난다)
+    // auditing 도 동작하지 않으므로 ETag / Last-Modified 가 바뀌도록 m.lastModifiedDate = local datetime 도 같이 넣는다
+    @Version
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
     private Team team;
@@ -46,8 +74,18 @@ public class Member extends BaseEntity{
 
     // java 객체기 때문에 멤버만 바꿔주는 것으로는 완료되지 않는다
     // Team 객체에도 변경을 주어야한다
+    // 연관관계의 주인은 Member.team 이므로 새 팀의 members 에는 영속성 컨텍스트에 연결된 경우 추가하고 (Team.addMember)
+    // 이전 팀에서 빼는 것은 members 가 이미 로딩된 경우에만 한다 (bag 의 remove 는 컬렉션 전체를 조회한다)
     public void changeTeam(Team team) {
+        Team previous = this.team;
         this.team = team;
-        team.getMembers().add(this);
+        // 프록시는 메소드를 호출하는 순간 초기화되므로 호출 전에 확인한다
+        if (previous != null && previous != team && Hibernate.isInitialized(previous)) {
+            previous.removeLoadedMember(this);
+        }
+        // 세션이 없거나 닫힌 프록시는 초기화할 수 없으므로 건너뛴다 (LazyInitializationException)
+        if (team != null && !LazyLoadingSupport.isDetachedProxy(team)) {
+            team.addMember(this);
+        }
     }
 }
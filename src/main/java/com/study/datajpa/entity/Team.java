@@ -1,7 +1,12 @@
 package com.study.datajpa.entity;
 
+import com.study.datajpa.persistence.LazyLoadingSupport;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -11,19 +16,44 @@ import java.util.List;
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+// 거의 변하지 않는 데이터라 2차 캐시에 올려둔다. Member.team 지연 로딩도 캐시에서 가져온다
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
 public class Team {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "team_seq_generator")
+    @SequenceGenerator(name = "team_seq_generator", sequenceName = "team_seq", allocationSize = 50)
     @Column(name = "team_id")
     private Long id;
     private String name;
 
+    @Version
+    private Long version;
+
     // mappedBy를 선언함으로써 자신은 연관관계의 주인이 아님을 선언함
+    // 회원이 팀을 옮길 때마다 팀 버전이 올라가면 같은 팀을 수정하는 트랜잭션끼리 충돌하므로 버전 계산에서 제외한다
+    @OptimisticLock(excluded = true)
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
         this.name = name;
     }
+
+    // Member.changeTeam 에서 사용
+    // 영속성 컨텍스트에 연결된 inverse 컬렉션은 로딩하지 않고 add 를 쌓아두었다가 로딩될 때 반영하므로
+    // flush 전에 같은 영속성 컨텍스트에서 members 를 읽어도 옮긴 회원이 들어있다
+    // 준영속이거나 세션이 닫혀 있으면 LazyInitializationException 이 나므로 건너뛰고 다음 조회에서 db 값을 읽는다
+    void addMember(Member member) {
+        if (Hibernate.isInitialized(members) || LazyLoadingSupport.isConnected(members)) {
+            members.add(member);
+        }
+    }
+
+    void removeLoadedMember(Member member) {
+        if (Hibernate.isInitialized(members)) {
+            members.remove(member);
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.study.datajpa.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간 순으로 정렬되는 26자리 문자열 id (ULID 형식, Crockford base32)
+ * 상위 48 bit 는 밀리초, 다음 16 bit 는 같은 밀리초 안의 순번, 나머지 64 bit 는 난수
+ *
+ * 밀리초 + 순번을 AtomicLong 하나에 담아 CAS 로 증가시키므로 lock 없이 여러 스레드에서 사용해도
+ * 항상 이전 값보다 큰 id 가 나온다 (순번이 넘치면 다음 밀리초를 미리 빌려쓴다)
+ * 문자열 비교 순서와 생성 순서가 같아서 pk 인덱스의 오른쪽 끝에만 insert 된다
+ */
+public final class MonotonicUlid {
+
+    public static final int LENGTH = 26;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int SEQUENCE_BITS = 16;
+
+    private static final AtomicLong LAST = new AtomicLong();
+
+    private MonotonicUlid() {
+    }
+
+    public static String next() {
+        long timeAndSequence = nextTimeAndSequence(System.currentTimeMillis());
+        return encode(timeAndSequence, ThreadLocalRandom.current().nextLong());
+    }
+
+    static long nextTimeAndSequence(long millis) {
+        long candidate = millis << SEQUENCE_BITS;
+        while (true) {
+            long last = LAST.get();
+            long next = Math.max(candidate, last + 1);
+            if (LAST.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+
+    // id 가 만들어진 시각 (epoch millis)
+    public static long timestampOf(String ulid) {
+        if (ulid == null || ulid.length() != LENGTH) {
+            throw new IllegalArgumentException("ULID 형식이 아닙니다: " + ulid);
+        }
+        long value = 0;
+        for (int i = 0; i < 10; i++) { // 앞 10자리 = 상위 50 bit = 0 bit 2개 + 밀리초 48 bit
+            value = (value << 5) | decode(ulid.charAt(i));
+        }
+        return value;
+    }
+
+    // 128 bit (high, low) 를 앞에 0 bit 2개를 붙인 130 bit 로 보고 5 bit 씩 끊는다
+    static String encode(long high, long low) {
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            int shift = (LENGTH - 1 - i) * 5;
+            int index;
+            if (shift + 5 <= 64) {
+                index = (int) (low >>> shift) & 0x1F;
+            } else if (shift < 64) {
+                index = (int) ((low >>> shift) | (high << (64 - shift))) & 0x1F;
+            } else {
+                index = (int) (high >>> (shift - 64)) & 0x1F;
+            }
+            chars[i] = ALPHABET[index];
+        }
+        return new String(chars);
+    }
+
+    private static int decode(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == Character.toUpperCase(c)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("ULID 에 사용할 수 없는 문자입니다: " + c);
+    }
+}
@@ -0,0 +1,93 @@
+package com.study.datajpa.monitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * lock 없이 기록하는 log-linear 히스토그램 (나노초 단위)
+ * 2의 거듭제곱 구간마다 16개의 하위 버킷을 두어 상대 오차는 약 6% 이내
+ * 기록 경로에서는 객체를 생성하지 않는다
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^40 ns (약 18분) 이상은 마지막 버킷에 쌓는다
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << MAX_EXPONENT) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_VALUE);
+        buckets.incrementAndGet(bucketIndex(value));
+        count.increment();
+        sum.add(value);
+        long current;
+        while (value > (current = max.get()) && !max.compareAndSet(current, value)) {
+            // 다른 스레드가 더 큰 값을 먼저 기록했으면 다시 비교
+        }
+    }
+
+    /**
+     * 현재 값을 복사해서 반환한다. reset 이 true 면 복사와 동시에 0 으로 되돌린다
+     * 기록 중인 스레드와 겹치면 몇 건이 다음 구간으로 넘어갈 수 있다
+     */
+    Snapshot snapshot(boolean reset) {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = reset ? buckets.getAndSet(i, 0) : buckets.get(i);
+        }
+        long total = reset ? count.sumThenReset() : count.sum();
+        long totalNanos = reset ? sum.sumThenReset() : sum.sum();
+        long maxNanos = reset ? max.getAndSet(0) : max.get();
+        return new Snapshot(counts, total, totalNanos, maxNanos);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // 버킷이 담당하는 구간의 최댓값
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long subBucket = index % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    record Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+
+        long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+
+        long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+    }
+}
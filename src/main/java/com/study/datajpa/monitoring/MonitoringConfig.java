@@ -0,0 +1,25 @@
+package com.study.datajpa.monitoring;
+
+import org.hibernate.stat.internal.StatisticsInitiator;
+import org.hibernate.stat.spi.StatisticsFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class MonitoringConfig implements WebMvcConfigurer {
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new SqlBudgetInterceptor());
+    }
+
+    // 하이버네이트 통계 구현을 바꿔서 조회마다 실행 시간을 느린 조회 로그에 넘긴다
+    @Bean
+    public HibernatePropertiesCustomizer slowQueryStatistics(SlowQueryLog slowQueryLog) {
+        StatisticsFactory factory = sessionFactory -> new SlowQueryStatistics(sessionFactory, slowQueryLog);
+        return properties -> properties.put(StatisticsInitiator.STATS_BUILDER, factory);
+    }
+}
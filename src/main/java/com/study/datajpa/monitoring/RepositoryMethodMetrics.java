@@ -0,0 +1,57 @@
+package com.study.datajpa.monitoring;
+
+import com.study.datajpa.dto.RepositoryMethodStatsDto;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * repository 메소드 하나의 호출 지표
+ * 응답 시간 히스토그램과 반환한 row 수, 실행한 sql 수, 예외 횟수를 누적한다
+ */
+final class RepositoryMethodMetrics {
+
+    private static final double NANOS_PER_MICRO = 1_000.0;
+
+    private final String repository;
+    private final String method;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    RepositoryMethodMetrics(String repository, String method) {
+        this.repository = repository;
+        this.method = method;
+    }
+
+    void record(long nanos, long rowCount, long statementCount, boolean failed) {
+        latency.record(nanos);
+        rows.add(rowCount);
+        statements.add(statementCount);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    RepositoryMethodStatsDto snapshot(boolean reset) {
+        LatencyHistogram.Snapshot snapshot = latency.snapshot(reset);
+        long rowTotal = reset ? rows.sumThenReset() : rows.sum();
+        long statementTotal = reset ? statements.sumThenReset() : statements.sum();
+        long errorTotal = reset ? errors.sumThenReset() : errors.sum();
+        long calls = snapshot.count();
+        return new RepositoryMethodStatsDto(
+                repository,
+                method,
+                calls,
+                errorTotal,
+                snapshot.meanNanos() / NANOS_PER_MICRO,
+                snapshot.percentile(50) / NANOS_PER_MICRO,
+                snapshot.percentile(99) / NANOS_PER_MICRO,
+                snapshot.percentile(99.9) / NANOS_PER_MICRO,
+                snapshot.maxNanos() / NANOS_PER_MICRO,
+                rowTotal,
+                calls == 0 ? 0 : (double) rowTotal / calls,
+                statementTotal,
+                calls == 0 ? 0 : (double) statementTotal / calls);
+    }
+}
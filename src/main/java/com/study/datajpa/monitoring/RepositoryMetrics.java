@@ -0,0 +1,78 @@
+package com.study.datajpa.monitoring;
+
+import com.study.datajpa.dto.RepositoryMethodStatsDto;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * repository 메소드별 지표 저장소
+ * 지표 객체는 처음 호출될 때 한 번만 만들고, 이후 조회는 객체 생성 없이 map 에서 꺼낸다
+ */
+@Component
+public class RepositoryMetrics {
+
+    private final Map<Class<?>, RepositoryEntry> repositories = new ConcurrentHashMap<>();
+
+    RepositoryMethodMetrics metricsFor(Class<?> targetClass, Method method) {
+        RepositoryEntry entry = repositories.get(targetClass);
+        if (entry == null) {
+            entry = repositories.computeIfAbsent(targetClass, type -> new RepositoryEntry(repositoryName(type)));
+        }
+        RepositoryMethodMetrics metrics = entry.methods.get(method);
+        if (metrics == null) {
+            RepositoryEntry owner = entry;
+            metrics = entry.methods.computeIfAbsent(method,
+                    key -> new RepositoryMethodMetrics(owner.name, methodName(key)));
+        }
+        return metrics;
+    }
+
+    // 평균 응답 시간 * 호출 수가 큰 (전체 시간을 많이 쓰는) 메소드 순
+    public List<RepositoryMethodStatsDto> snapshot(boolean reset) {
+        return repositories.values().stream()
+                .flatMap(entry -> entry.methods.values().stream())
+                .map(metrics -> metrics.snapshot(reset))
+                .filter(stats -> stats.getCalls() > 0)
+                .sorted(Comparator.comparingDouble(
+                        (RepositoryMethodStatsDto stats) -> stats.getMeanMicros() * stats.getCalls()).reversed())
+                .toList();
+    }
+
+    // spring data repository 는 jdk proxy 이므로 구현한 repository 인터페이스 이름을 사용한다
+    private static String repositoryName(Class<?> type) {
+        if (Proxy.isProxyClass(type)) {
+            return Arrays.stream(type.getInterfaces())
+                    .filter(Repository.class::isAssignableFrom)
+                    .filter(repositoryInterface -> !repositoryInterface.getName().startsWith("org.springframework."))
+                    .map(Class::getSimpleName)
+                    .findFirst()
+                    .orElse(type.getSimpleName());
+        }
+        return ClassUtils.getUserClass(type).getSimpleName();
+    }
+
+    private static String methodName(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(", ", method.getName() + "(", ")"));
+    }
+
+    private static final class RepositoryEntry {
+        private final String name;
+        private final Map<Method, RepositoryMethodMetrics> methods = new ConcurrentHashMap<>();
+
+        private RepositoryEntry(String name) {
+            this.name = name;
+        }
+    }
+}
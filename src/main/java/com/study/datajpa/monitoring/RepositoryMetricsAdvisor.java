@@ -0,0 +1,82 @@
+package com.study.datajpa.monitoring;
+
+import com.study.datajpa.dto.CursorSlice;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.BaseStream;
+
+/**
+ * 모든 repository (spring data 인터페이스와 @Repository 클래스) 메소드의 응답 시간, row 수, sql 수를 기록한다
+ * 항상 켜두는 용도라서 @Aspect 대신 MethodInterceptor 로 구현해 JoinPoint 생성을 피했다
+ * 트랜잭션보다 바깥에서 측정하므로 커밋 시점의 flush 도 포함된다
+ */
+@Component
+public class RepositoryMetricsAdvisor extends StaticMethodMatcherPointcutAdvisor implements MethodInterceptor {
+
+    private final RepositoryMetrics metrics;
+
+    public RepositoryMetricsAdvisor(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+        setAdvice(this);
+        setOrder(Ordered.HIGHEST_PRECEDENCE);
+        setClassFilter(type -> Repository.class.isAssignableFrom(type)
+                || AnnotatedElementUtils.hasAnnotation(type, org.springframework.stereotype.Repository.class));
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return !ReflectionUtils.isObjectMethod(method);
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RepositoryMethodMetrics methodMetrics = metrics.metricsFor(invocation.getThis().getClass(), invocation.getMethod());
+        long statementsBefore = SqlStatementCounter.executedOnCurrentThread();
+        long start = System.nanoTime();
+        boolean failed = true;
+        Object result = null;
+        try {
+            result = invocation.proceed();
+            failed = false;
+            return result;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            long statements = SqlStatementCounter.executedOnCurrentThread() - statementsBefore;
+            methodMetrics.record(elapsed, failed ? 0 : rowsOf(result), statements, failed);
+        }
+    }
+
+    /**
+     * 반환한 엔티티 / dto 수
+     * count, 벌크 수정 결과 같은 숫자와 boolean, Stream 은 row 로 세지 않는다
+     */
+    private static long rowsOf(Object result) {
+        if (result == null || result instanceof Number || result instanceof Boolean || result instanceof BaseStream<?, ?>) {
+            return 0;
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof CursorSlice<?> cursorSlice) {
+            return cursorSlice.getContent().size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return 1;
+    }
+}
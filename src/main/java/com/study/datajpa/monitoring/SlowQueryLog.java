@@ -0,0 +1,100 @@
+package com.study.datajpa.monitoring;
+
+import com.study.datajpa.dto.SlowQueryStatsDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 느린 조회 로그
+ * 조회 스레드에서는 기준 시간 비교 / 샘플링 / 큐에 넣기만 하고, 로그는 별도 스레드 하나가 쓴다
+ * 큐가 가득 차면 조회 스레드를 막지 않고 버린 개수만 센다
+ * org.hibernate.SQL / bind 로그 없이 운영할 때 어떤 조회가 느린지 확인하는 용도다
+ */
+@Slf4j
+@Component
+public class SlowQueryLog implements DisposableBean {
+
+    private final long thresholdMillis;
+    private final double sampleRate;
+    private final int maxQueryLength;
+    private final BlockingQueue<SlowQuery> queue;
+    private final Thread writer;
+
+    private final LongAdder slow = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder logged = new LongAdder();
+
+    public SlowQueryLog(SlowQueryProperties properties) {
+        if (properties.getSampleRate() < 0 || properties.getSampleRate() > 1) {
+            throw new IllegalArgumentException("sampleRate는 0 ~ 1 사이여야 합니다");
+        }
+        this.thresholdMillis = properties.getThreshold().toMillis();
+        this.sampleRate = properties.getSampleRate();
+        this.maxQueryLength = properties.getMaxQueryLength();
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.writer = new Thread(this::drain, "slow-query-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // 하이버네이트가 조회를 실행할 때마다 호출한다 (SlowQueryStatistics)
+    public void record(String query, long rows, long millis) {
+        if (millis < thresholdMillis) {
+            return;
+        }
+        slow.increment();
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOut.increment();
+            return;
+        }
+        if (!queue.offer(new SlowQuery(query, rows, millis, Thread.currentThread().getName()))) {
+            dropped.increment();
+        }
+    }
+
+    public SlowQueryStatsDto stats() {
+        return new SlowQueryStatsDto(thresholdMillis, sampleRate,
+                slow.sum(), logged.sum(), sampledOut.sum(), dropped.sum(), queue.size());
+    }
+
+    private void drain() {
+        try {
+            while (true) {
+                write(queue.take());
+            }
+        } catch (InterruptedException e) {
+            // 종료 시 남은 항목까지 쓴다
+            SlowQuery remaining;
+            while ((remaining = queue.poll()) != null) {
+                write(remaining);
+            }
+        }
+    }
+
+    private void write(SlowQuery query) {
+        log.warn("slow query {}ms, rows={}, thread={} : {}", query.millis, query.rows, query.thread, truncate(query.query));
+        logged.increment();
+    }
+
+    private String truncate(String query) {
+        if (query == null || query.length() <= maxQueryLength) {
+            return query;
+        }
+        return query.substring(0, maxQueryLength) + "...(" + query.length() + " chars)";
+    }
+
+    @Override
+    public void destroy() {
+        writer.interrupt();
+    }
+
+    private record SlowQuery(String query, long rows, long millis, String thread) {
+    }
+}
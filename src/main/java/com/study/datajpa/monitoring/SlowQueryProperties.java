@@ -0,0 +1,30 @@
+package com.study.datajpa.monitoring;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * monitoring.slow-query 설정 (SlowQueryLog)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("monitoring.slow-query")
+public class SlowQueryProperties {
+
+    // 실행 시간이 이 값 이상인 조회만 남긴다 (하이버네이트는 ms 단위로 잰다)
+    private Duration threshold = Duration.ofMillis(200);
+
+    // 느린 조회 중 로그로 남길 비율 (0 ~ 1). 느린 조회가 몰릴 때 로그 양을 줄인다
+    private double sampleRate = 1.0;
+
+    // 로그를 쓰는 스레드가 밀리면 이 개수를 넘는 항목은 버리고 개수만 센다
+    private int queueCapacity = 1000;
+
+    // 큰 in 절 같은 긴 쿼리는 잘라서 남긴다
+    private int maxQueryLength = 2000;
+}
@@ -0,0 +1,25 @@
+package com.study.datajpa.monitoring;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.internal.StatisticsImpl;
+
+/**
+ * 기본 통계에 조회 실행마다 SlowQueryLog 로 넘기는 것만 더한다
+ * query 는 hql / jpql 조회면 그 문자열, em.find / 지연 로딩처럼 hql 이 없는 조회면 실행한 sql 이다
+ * MonitoringConfig 에서 hibernate.stats.factory 로 등록하고, hibernate.generate_statistics 가 켜져 있어야 호출된다
+ */
+class SlowQueryStatistics extends StatisticsImpl {
+
+    private final SlowQueryLog slowQueryLog;
+
+    SlowQueryStatistics(SessionFactoryImplementor sessionFactory, SlowQueryLog slowQueryLog) {
+        super(sessionFactory);
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public void queryExecuted(String query, int rows, long time) {
+        super.queryExecuted(query, rows, time);
+        slowQueryLog.record(query, rows, time);
+    }
+}
@@ -0,0 +1,22 @@
+package com.study.datajpa.monitoring;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 메소드(컨트롤러 핸들러, repository 메소드, 테스트) 한번 실행에 허용되는 sql 수
+ * 지연 로딩으로 인한 N + 1 이 생기면 select 수가 예산을 넘어서 로그(테스트는 실패)로 드러난다
+ * -1 은 제한 없음
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD})
+public @interface SqlBudget {
+
+    int maxStatements() default -1;
+
+    int maxSelects() default -1;
+}
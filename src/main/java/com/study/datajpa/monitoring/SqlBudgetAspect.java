@@ -0,0 +1,29 @@
+package com.study.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * repository 메소드 등에 선언된 @SqlBudget 검사
+ * 운영 중에는 예외 대신 경고 로그만 남긴다
+ */
+@Slf4j
+@Aspect
+@Component
+public class SqlBudgetAspect {
+
+    @Around("@annotation(budget)")
+    public Object checkBudget(ProceedingJoinPoint joinPoint, SqlBudget budget) throws Throwable {
+        try (SqlStatementScope scope = SqlStatementCounter.open(joinPoint.getSignature().toShortString())) {
+            Object result = joinPoint.proceed();
+            if (scope.exceeds(budget)) {
+                log.warn("SQL budget exceeded (maxStatements={}, maxSelects={}): {}",
+                        budget.maxStatements(), budget.maxSelects(), scope.describe());
+            }
+            return result;
+        }
+    }
+}
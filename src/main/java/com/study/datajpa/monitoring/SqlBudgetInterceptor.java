@@ -0,0 +1,54 @@
+package com.study.datajpa.monitoring;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * http 요청마다 실행된 sql 수를 집계하고
+ * 핸들러에 선언된 @SqlBudget 을 넘으면 쿼리 모양과 함께 경고 로그를 남긴다
+ */
+@Slf4j
+public class SqlBudgetInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String SCOPE_ATTRIBUTE = SqlBudgetInterceptor.class.getName() + ".scope";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            String name = request.getMethod() + " " + request.getRequestURI();
+            request.setAttribute(SCOPE_ATTRIBUTE, SqlStatementCounter.open(name));
+        }
+        return true;
+    }
+
+    // 비동기 응답(StreamingResponseBody 등)은 다른 스레드에서 실행되므로 요청 스레드의 구간은 여기서 닫는다
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Object scope = request.getAttribute(SCOPE_ATTRIBUTE);
+        if (scope instanceof SqlStatementScope sqlStatementScope) {
+            sqlStatementScope.close();
+            request.removeAttribute(SCOPE_ATTRIBUTE);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(request.getAttribute(SCOPE_ATTRIBUTE) instanceof SqlStatementScope scope)) {
+            return;
+        }
+        scope.close();
+        request.removeAttribute(SCOPE_ATTRIBUTE);
+
+        SqlBudget budget = handler instanceof HandlerMethod handlerMethod
+                ? handlerMethod.getMethodAnnotation(SqlBudget.class) : null;
+        if (budget != null && scope.exceeds(budget)) {
+            log.warn("SQL budget exceeded (maxStatements={}, maxSelects={}): {}",
+                    budget.maxStatements(), budget.maxSelects(), scope.describe());
+        } else if (log.isDebugEnabled()) {
+            log.debug("{}", scope.describe());
+        }
+    }
+}
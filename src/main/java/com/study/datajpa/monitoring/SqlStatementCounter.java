@@ -0,0 +1,46 @@
+package com.study.datajpa.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * 하이버네이트가 실행하는 모든 sql 을 가로채서 현재 스레드에 열려있는 측정 구간에 기록한다
+ * application.yml 의 hibernate.session_factory.statement_inspector 로 등록한다
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<SqlStatementScope> CURRENT = new ThreadLocal<>();
+    // 구간과 관계없이 스레드별로 누적되는 실행 수. 전후 값의 차이로 측정한다
+    private static final ThreadLocal<long[]> EXECUTED = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        EXECUTED.get()[0]++;
+        for (SqlStatementScope scope = CURRENT.get(); scope != null; scope = scope.getParent()) {
+            scope.record(sql);
+        }
+        return sql;
+    }
+
+    // 현재 스레드에서 지금까지 실행된 sql 수
+    static long executedOnCurrentThread() {
+        return EXECUTED.get()[0];
+    }
+
+    // try-with-resources 로 사용
+    public static SqlStatementScope open(String name) {
+        SqlStatementScope scope = new SqlStatementScope(name, CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    static void close(SqlStatementScope scope) {
+        if (CURRENT.get() != scope) {
+            return; // 이미 닫혔거나 다른 스레드에서 닫는 경우
+        }
+        if (scope.getParent() == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(scope.getParent());
+        }
+    }
+}
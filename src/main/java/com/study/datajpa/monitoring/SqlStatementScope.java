@@ -0,0 +1,104 @@
+package com.study.datajpa.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 하나의 측정 구간(http 요청, repository 메소드, 테스트) 동안 실행된 sql 집계
+ * 구간은 중첩될 수 있고, sql 은 열려있는 모든 구간에 기록된다
+ * 스레드 하나에서만 사용되므로 동기화하지 않는다
+ */
+public final class SqlStatementScope implements AutoCloseable {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+
+    private final String name;
+    private final SqlStatementScope parent;
+
+    private int selects;
+    private int inserts;
+    private int updates;
+    private int deletes;
+    private int others;
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+
+    SqlStatementScope(String name, SqlStatementScope parent) {
+        this.name = name;
+        this.parent = parent;
+    }
+
+    void record(String sql) {
+        String shape = shapeOf(sql);
+        String keyword = shape.length() >= 6 ? shape.substring(0, 6).toLowerCase() : shape.toLowerCase();
+        switch (keyword) {
+            case "select" -> selects++;
+            case "insert" -> inserts++;
+            case "update" -> updates++;
+            case "delete" -> deletes++;
+            default -> others++;
+        }
+        shapes.merge(shape, 1, Integer::sum);
+    }
+
+    // 공백과 in 절 파라미터 개수를 정리해서 같은 모양의 쿼리끼리 묶는다
+    private static String shapeOf(String sql) {
+        String trimmed = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        return PARAMETER_LIST.matcher(trimmed).replaceAll("(?)");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    SqlStatementScope getParent() {
+        return parent;
+    }
+
+    public int getStatements() {
+        return selects + inserts + updates + deletes + others;
+    }
+
+    public int getSelects() {
+        return selects;
+    }
+
+    public int getInserts() {
+        return inserts;
+    }
+
+    public int getUpdates() {
+        return updates;
+    }
+
+    public int getDeletes() {
+        return deletes;
+    }
+
+    public Map<String, Integer> getShapes() {
+        return shapes;
+    }
+
+    public boolean exceeds(SqlBudget budget) {
+        return (budget.maxStatements() >= 0 && getStatements() > budget.maxStatements())
+                || (budget.maxSelects() >= 0 && selects > budget.maxSelects());
+    }
+
+    // 많이 실행된 쿼리 모양 순으로 정리
+    public String describe() {
+        String topShapes = shapes.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                .map(entry -> "  " + entry.getValue() + "x " + entry.getKey())
+                .collect(Collectors.joining("\n"));
+        return name + " statements=" + getStatements()
+                + " (select=" + selects + ", insert=" + inserts + ", update=" + updates
+                + ", delete=" + deletes + ", other=" + others + ")\n" + topShapes;
+    }
+
+    @Override
+    public void close() {
+        SqlStatementCounter.close(this);
+    }
+}
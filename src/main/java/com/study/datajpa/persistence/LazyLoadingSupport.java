@@ -0,0 +1,36 @@
+package com.study.datajpa.persistence;
+
+import org.hibernate.collection.spi.AbstractPersistentCollection;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.proxy.HibernateProxy;
+
+import java.util.Collection;
+
+/**
+ * 연관관계 편의 메소드에서 지연 로딩 대상을 건드려도 되는지 확인하는 보조 로직
+ * 엔티티가 hibernate 내부 타입(spi) 에 직접 의존하지 않도록 여기에 모은다
+ */
+public final class LazyLoadingSupport {
+
+    private LazyLoadingSupport() {
+    }
+
+    // 세션이 없거나 닫힌 프록시는 초기화할 수 없다 (LazyInitializationException)
+    public static boolean isDetachedProxy(Object entity) {
+        if (!(entity instanceof HibernateProxy proxy) || !proxy.getHibernateLazyInitializer().isUninitialized()) {
+            return false;
+        }
+        SharedSessionContractImplementor session = proxy.getHibernateLazyInitializer().getSession();
+        return session == null || !session.isOpen();
+    }
+
+    // 열린 세션의 영속성 컨텍스트에 연결된 컬렉션이면 로딩하지 않고 add 를 쌓아둘 수 있다
+    public static boolean isConnected(Collection<?> collection) {
+        if (!(collection instanceof AbstractPersistentCollection<?> persistent)) {
+            return false;
+        }
+        SharedSessionContractImplementor session = persistent.getSession();
+        return session != null && session.isOpen()
+                && session.getPersistenceContextInternal().containsCollection(persistent);
+    }
+}
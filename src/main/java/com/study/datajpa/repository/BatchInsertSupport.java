@@ -0,0 +1,42 @@
+package com.study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+
+/**
+ * 대량 저장용 공통 로직
+ * persist 를 batchSize 만큼 모은 뒤 flush -> jdbc batch 로 한번에 insert 하고
+ * clear 로 영속성 컨텍스트를 비워서 메모리가 계속 늘어나지 않게 한다
+ * (id 는 pooled 시퀀스로 allocationSize 만큼 미리 받아오므로 insert 마다 시퀀스 조회를 하지 않는다)
+ */
+final class BatchInsertSupport {
+
+    private BatchInsertSupport() {
+    }
+
+    // 주의: clear 를 하기 때문에 같은 트랜잭션에서 앞서 조회한 엔티티도 준영속 상태가 된다
+    static <T> int persistInBatches(EntityManager em, Iterable<T> entities, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다");
+        }
+
+        Session session = em.unwrap(Session.class);
+        Integer previousBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            int count = 0;
+            for (T entity : entities) {
+                em.persist(entity);
+                if (++count % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+            return count;
+        } finally {
+            session.setJdbcBatchSize(previousBatchSize);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.study.datajpa.repository;
+
+/**
+ * 페이지 조회 시 전체 개수(totalElements) 를 구하는 방법
+ * 어떤 모드든 마지막 페이지(다음 페이지가 없는 경우)는 count 쿼리 없이 개수를 계산한다
+ */
+public enum CountMode {
+    EXACT,       // 매번 count 쿼리
+    CACHED,      // count 결과를 일정 시간 재사용
+    APPROXIMATE  // db 통계정보의 추정치
+}
@@ -0,0 +1,26 @@
+package com.study.datajpa.repository;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * query.in-list 설정 (InListQueries)
+ * chunkSize 는 hibernate in_clause_parameter_padding 과 맞춰 2의 거듭제곱으로 둔다
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties("query.in-list")
+public class InListProperties {
+
+    // in 절 하나에 넣는 최대 값 수. 넘으면 나눠서 조회한다
+    private int chunkSize = 512;
+
+    // 나눠진 조회를 동시에 실행할 스레드 수 (1 이면 순서대로 실행)
+    private int parallelism = 4;
+
+    // 값이 이 개수 이상이면 임시 테이블에 넣고 join 한다
+    private int tempTableThreshold = 8192;
+}
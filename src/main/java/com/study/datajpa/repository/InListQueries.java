@@ -0,0 +1,148 @@
+package com.study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 값 목록이 큰 in 절 조회
+ * - chunkSize 이하 : in 절 하나 (hibernate 가 파라미터 수를 2의 거듭제곱으로 맞춰서 쿼리 / 실행 계획 캐시가 커지지 않는다)
+ * - tempTableThreshold 미만 : chunkSize 씩 나눠서 조회하고 합친다
+ *   스레드에 영속성 컨텍스트가 없을 때만(트랜잭션 / open-in-view 밖) 여러 스레드에서 동시에 조회한다
+ *   영속성 컨텍스트가 있다면 결과 엔티티가 그 컨텍스트에 들어가야 하므로 같은 스레드에서 순서대로 조회한다
+ * - 그 이상 : 트랜잭션 안에서 임시 테이블에 값을 jdbc batch 로 넣고 join 한다 (커밋 시 임시 테이블은 삭제된다)
+ * 중복 값은 미리 제거하므로 나눠서 조회해도 같은 row 가 두 번 나오지 않는다 (결과 순서는 보장하지 않는다)
+ */
+@Component
+public class InListQueries implements DisposableBean {
+
+    private static final AtomicInteger TEMP_TABLE_SEQUENCE = new AtomicInteger();
+
+    private final EntityManager em;
+    private final EntityManagerFactory entityManagerFactory;
+    private final InListProperties properties;
+    private final TransactionTemplate readTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final ExecutorService executor;
+
+    public InListQueries(EntityManager em, EntityManagerFactory entityManagerFactory, InListProperties properties,
+                         PlatformTransactionManager transactionManager) {
+        if (properties.getChunkSize() < 1 || properties.getParallelism() < 1) {
+            throw new IllegalArgumentException("chunkSize, parallelism은 1 이상이어야 합니다");
+        }
+        this.em = em;
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.executor = properties.getParallelism() > 1
+                ? Executors.newFixedThreadPool(properties.getParallelism(), runnable -> {
+                    Thread thread = new Thread(runnable, "in-list-query");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+    }
+
+    /**
+     * @param inQuery        값 목록(chunkSize 이하)을 in 절로 조회한다
+     * @param tempTableJoin  임시 테이블과 join 하는 native sql. %s 에 임시 테이블 이름이 들어가고 값 컬럼 이름은 val 이다
+     * @param resultClass    tempTableJoin 결과 엔티티
+     */
+    public <T> List<T> find(Collection<String> values, Function<List<String>, List<T>> inQuery,
+                            String tempTableJoin, Class<T> resultClass) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(values));
+        if (distinct.isEmpty()) {
+            return new ArrayList<>();
+        }
+        if (distinct.size() <= properties.getChunkSize()) {
+            return inQuery.apply(distinct);
+        }
+        if (distinct.size() >= properties.getTempTableThreshold()) {
+            return TransactionSynchronizationManager.isActualTransactionActive()
+                    ? joinTempTable(distinct, tempTableJoin, resultClass)
+                    : writeTransaction.execute(status -> joinTempTable(distinct, tempTableJoin, resultClass));
+        }
+
+        List<List<String>> chunks = chunks(distinct);
+        List<T> result = new ArrayList<>();
+        if (executor == null || TransactionSynchronizationManager.hasResource(entityManagerFactory)) {
+            for (List<String> chunk : chunks) {
+                result.addAll(inQuery.apply(chunk));
+            }
+            return result;
+        }
+
+        // 조회마다 별도 트랜잭션(영속성 컨텍스트) 이므로 결과는 준영속 상태다
+        List<CompletableFuture<List<T>>> futures = chunks.stream()
+                .map(chunk -> CompletableFuture.supplyAsync(() -> readTransaction.execute(status -> inQuery.apply(chunk)), executor))
+                .toList();
+        for (CompletableFuture<List<T>> future : futures) {
+            result.addAll(future.join());
+        }
+        return result;
+    }
+
+    private List<List<String>> chunks(List<String> values) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += properties.getChunkSize()) {
+            chunks.add(values.subList(from, Math.min(values.size(), from + properties.getChunkSize())));
+        }
+        return chunks;
+    }
+
+    // 같은 트랜잭션에서 여러 번 호출해도 부딪히지 않도록 호출마다 다른 이름을 쓴다
+    @SuppressWarnings("unchecked")
+    private <T> List<T> joinTempTable(List<String> values, String tempTableJoin, Class<T> resultClass) {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        String table = "in_list_" + TEMP_TABLE_SEQUENCE.incrementAndGet();
+        String options = dialect.getTemporaryTableCreateOptions();
+        String create = dialect.getTemporaryTableCreateCommand() + " " + table + " (val varchar(255) not null)"
+                + (options == null ? "" : " " + options);
+
+        em.unwrap(Session.class).doWork(connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(create);
+            }
+            try (PreparedStatement insert = connection.prepareStatement("insert into " + table + " (val) values (?)")) {
+                int count = 0;
+                for (String value : values) {
+                    insert.setString(1, value);
+                    insert.addBatch();
+                    if (++count % properties.getChunkSize() == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        });
+        return em.createNativeQuery(String.format(tempTableJoin, table), resultClass).getResultList();
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -3,7 +3,8 @@ package com.study.datajpa.repository;
 import com.study.datajpa.entity.Item;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-public interface ItemRepository extends JpaRepository<Item, Long> {
+// Item 의 id 는 String (Persistable<String>)
+public interface ItemRepository extends JpaRepository<Item, String>, ItemRepositoryCustom {
 
 
 }
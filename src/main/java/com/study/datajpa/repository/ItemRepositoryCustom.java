@@ -0,0 +1,9 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.entity.Item;
+
+public interface ItemRepositoryCustom {
+
+    // 새 Item 대량 저장. merge(select) 없이 persist + jdbc batch 로 insert 한다
+    int insertAll(Iterable<Item> items, int batchSize);
+}
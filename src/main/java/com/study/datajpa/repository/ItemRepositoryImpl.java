@@ -0,0 +1,20 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.entity.Item;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.annotation.Transactional;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements ItemRepositoryCustom {
+
+    private final EntityManager em;
+
+    // saveAll 은 isNew 판단 후 건마다 persist 하지만 flush / clear 를 하지 않는다
+    // 이미 저장된 Item 을 넘기면 persist 에서 예외가 발생한다
+    @Override
+    @Transactional
+    public int insertAll(Iterable<Item> items, int batchSize) {
+        return BatchInsertSupport.persistInBatches(em, items, batchSize);
+    }
+}
@@ -0,0 +1,21 @@
+package com.study.datajpa.repository;
+
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+import java.sql.SQLException;
+
+/**
+ * hikari 는 SQLTimeoutException 이 나면 커넥션이 끊어진 것으로 보고 풀에서 버린다
+ * H2 는 락 대기 시간 초과(50200)도 SQLTimeoutException 으로 던지므로, 그대로 두면 롤백도 못하고
+ * claimByAge / lockByUserName 에서 잠금 실패 한번마다 커넥션을 새로 만든다
+ * 락 대기 시간 초과는 커넥션 문제가 아니므로 버리지 않는다 (spring.datasource.hikari.exception-override-class-name)
+ */
+public class LockTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    static final int H2_LOCK_TIMEOUT = 50200;
+
+    @java.lang.Override
+    public Override adjudicate(SQLException sqlException) {
+        return sqlException.getErrorCode() == H2_LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
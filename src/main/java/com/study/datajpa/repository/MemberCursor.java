@@ -0,0 +1,44 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.entity.Member;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 마지막으로 읽은 (userName, id) 를 담는 커서
+ * 클라이언트에는 base64 로 인코딩한 불투명 토큰으로만 노출한다
+ */
+@Getter
+@AllArgsConstructor
+class MemberCursor {
+
+    private final String userName;
+    private final Long id;
+
+    static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUserName(), member.getId());
+    }
+
+    // userName 에 ':' 가 들어갈 수 있으므로 id 를 앞에 둔다
+    String encode() {
+        String raw = id + ":" + userName;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 첫 페이지 요청이면 null
+    static MemberCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new MemberCursor(raw.substring(separator + 1), Long.valueOf(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("잘못된 커서 토큰입니다: " + token, e);
+        }
+    }
+}
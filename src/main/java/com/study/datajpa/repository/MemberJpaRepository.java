@@ -1,13 +1,29 @@
 package com.study.datajpa.repository;
 
+import com.study.datajpa.aggregate.RecomputeMemberAggregates;
+import com.study.datajpa.cache.EvictMemberReadModels;
 import com.study.datajpa.entity.Member;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Repository
 @RequiredArgsConstructor
@@ -15,6 +31,7 @@ import java.util.Optional;
 public class MemberJpaRepository {
 
     private final EntityManager em;
+    private final PlatformTransactionManager transactionManager;
 
     @Transactional
     public Member save(Member member) {
@@ -22,6 +39,12 @@ public class MemberJpaRepository {
         return member;
     }
 
+    // 대량 저장. batchSize 마다 flush / clear 를 진행한다
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        return BatchInsertSupport.persistInBatches(em, members, batchSize);
+    }
+
     @Transactional
     public void delete(Member member) {
         em.remove(member);
@@ -33,6 +56,135 @@ public class MemberJpaRepository {
                 , Member.class).getResultList();
     }
 
+    // 전체 회원을 한 트랜잭션 안에서 forward-only 커서로 chunkSize 씩 읽고 청크마다 chunkHandler 를 호출한다
+    // 호출 후 flush / clear 로 변경 사항을 내보내고 영속성 컨텍스트를 비우므로 메모리에는 한 청크만 남는다
+    // 커밋은 마지막에 한번이라 중간에 실패하면 전부 롤백된다. 청크마다 커밋하려면 processInChunks
+    // 바꾼 row 만큼 db 의 undo 로그와 엔티티 리스너의 커밋 후 콜백은 커밋까지 남으므로 대량 수정도 processInChunks 를 사용
+    // 커서를 연 채로 update 를 보내므로 스트리밍 중 다른 문장을 실행할 수 없는 db(mysql 등) 에서도 processInChunks 를 사용
+    @Transactional
+    public long scrollInChunks(int chunkSize, Consumer<List<Member>> chunkHandler) {
+        checkChunkSize(chunkSize);
+        long count = 0;
+        try (ScrollableResults<Member> scroll = em.unwrap(Session.class)
+                .createQuery("select m from Member m order by m.id", Member.class)
+                .setFetchSize(chunkSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            List<Member> chunk = new ArrayList<>(chunkSize);
+            while (scroll.next()) {
+                chunk.add(scroll.get());
+                if (chunk.size() == chunkSize) {
+                    count += flushChunk(chunk, chunkHandler);
+                }
+            }
+            count += flushChunk(chunk, chunkHandler);
+        }
+        return count;
+    }
+
+    // 전체 회원을 id 순으로 chunkSize 씩 나누고 청크마다 별도 트랜잭션으로 조회 / 처리 / 커밋한다
+    // 커서를 커밋 너머로 유지하지 않고 다음 청크는 마지막 id 이후부터 다시 조회한다 (keyset)
+    // workers 가 2 이상이면 호출 스레드는 청크의 id 범위만 읽고 작업자 스레드가 청크를 처리한다
+    // 동시에 처리 중인 청크는 최대 workers 개라 메모리 사용량은 전체 회원 수와 상관없다
+    // 실패하면 새 청크는 시작하지 않고 예외를 던진다. 이미 커밋된 청크는 그대로 남으므로 chunkHandler 는 다시 실행해도 되게 만든다
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long processInChunks(int chunkSize, int workers, Consumer<List<Member>> chunkHandler) {
+        checkChunkSize(chunkSize);
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers는 1 이상이어야 합니다");
+        }
+
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        ExecutorService pool = workers > 1
+                ? Executors.newFixedThreadPool(workers, runnable -> {
+                    Thread thread = new Thread(runnable, "member-chunk");
+                    thread.setDaemon(true);
+                    return thread;
+                })
+                : null;
+        Executor executor = pool != null ? pool : Runnable::run;
+        Semaphore inFlight = new Semaphore(workers);
+        // 작업자 스레드에서 난 Error(OutOfMemoryError, 핸들러의 AssertionError 등) 도 잡아서 호출한 쪽으로 넘긴다
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        AtomicLong count = new AtomicLong();
+        try {
+            long after = Long.MIN_VALUE;
+            while (failure.get() == null) {
+                List<Long> ids = em.createQuery("select m.id from Member m where m.id > :after order by m.id", Long.class)
+                        .setParameter("after", after)
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long first = ids.get(0);
+                long last = ids.get(ids.size() - 1);
+                after = last;
+
+                acquire(inFlight, 1);
+                executor.execute(() -> {
+                    try {
+                        count.addAndGet(chunkTransaction.execute(status -> {
+                            List<Member> chunk = em.createQuery(
+                                            "select m from Member m where m.id between :first and :last order by m.id", Member.class)
+                                    .setParameter("first", first)
+                                    .setParameter("last", last)
+                                    .getResultList();
+                            chunkHandler.accept(chunk);
+                            return chunk.size();
+                        }));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            acquire(inFlight, workers); // 처리 중인 청크가 모두 끝날 때까지 기다린다
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
+            }
+        }
+        Throwable error = failure.get();
+        if (error instanceof RuntimeException e) {
+            throw e;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        if (error != null) {
+            throw new IllegalStateException("청크 처리 중 오류가 발생했습니다", error);
+        }
+        return count.get();
+    }
+
+    private int flushChunk(List<Member> chunk, Consumer<List<Member>> chunkHandler) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        chunkHandler.accept(chunk);
+        em.flush();
+        em.clear();
+        int size = chunk.size();
+        chunk.clear();
+        return size;
+    }
+
+    private static void checkChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다");
+        }
+    }
+
+    private static void acquire(Semaphore semaphore, int permits) {
+        try {
+            semaphore.acquire(permits);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("청크 처리를 기다리는 중 인터럽트 되었습니다", e);
+        }
+    }
+
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -70,8 +222,12 @@ public class MemberJpaRepository {
                 .getSingleResult();
     }
 
+    @Transactional
+    @EvictMemberReadModels
+    @RecomputeMemberAggregates
     public int bulkAge(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 10 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 10, m.version = m.version + 1,"
+                        + " m.lastModifiedDate = local datetime where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate(); // 업데이트
     }
@@ -0,0 +1,33 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.entity.Member;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+/**
+ * findByAge / findByNativeProjection 을 count 쿼리 없는 Slice 로 조회하고 CountMode 에 맞는 전체 개수를 붙인다
+ * (/members 목록과 같은 방식. 마지막 페이지는 어떤 모드든 count 쿼리가 없다)
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberPageQueries {
+
+    private static final String TABLE = "member";
+
+    private final MemberRepository memberRepository;
+    private final PageTotalCounter pageTotalCounter;
+
+    // 나이 조건이 있어서 테이블 추정치는 쓸 수 없으므로 APPROXIMATE 는 CACHED 로 처리한다
+    public Page<Member> findByAge(int age, Pageable pageable, CountMode countMode) {
+        CountMode mode = countMode == CountMode.APPROXIMATE ? CountMode.CACHED : countMode;
+        return pageTotalCounter.toPage(memberRepository.findSliceByAge(age, pageable), mode,
+                TABLE, TABLE + ":age=" + age, () -> memberRepository.countByAge(age));
+    }
+
+    public Page<MemberProjection> findByNativeProjection(Pageable pageable, CountMode countMode) {
+        return pageTotalCounter.toPage(memberRepository.findSliceByNativeProjection(pageable), countMode,
+                TABLE, memberRepository::count);
+    }
+}
@@ -1,24 +1,39 @@
 package com.study.datajpa.repository;
 
+import com.study.datajpa.aggregate.RecomputeMemberAggregates;
+import com.study.datajpa.cache.EvictMemberReadModels;
+import com.study.datajpa.cache.MemberCacheNames;
 import com.study.datajpa.dto.MemberDto;
+import com.study.datajpa.dto.MemberListVersion;
+import com.study.datajpa.dto.MemberReadModel;
 import com.study.datajpa.entity.Member;
-import jakarta.persistence.LockModeType;
+import com.study.datajpa.monitoring.SqlBudget;
 import jakarta.persistence.QueryHint;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * MmeberRepositoryCustom 을 extends 로 받아온 다음 그대로 사용하게 되면,
  * spring data 에서 자동으로 MemberRepositoryImpl 을 사용하게 도와준다
+ *
+ * 직접 선언한 쿼리 메소드는 SimpleJpaRepository 의 readOnly 설정을 물려받지 않아 트랜잭션 없이 실행됐다
+ * 인터페이스에 readOnly 를 붙여서 새로 여는 트랜잭션은 읽기 전용 세션(스냅샷 없음) + flush MANUAL 로 실행된다
+ * 수정 메소드는 메소드에 @Transactional 을 따로 붙여서 제외한다 (락 메소드는 MemberRepositoryImpl 에서 MANDATORY)
+ * 이미 진행 중인 트랜잭션 / open-in-view 의 영속성 컨텍스트에 참여하면 스냅샷은 그대로 만든다
+ * (조회한 엔티티를 같은 영속성 컨텍스트에서 나중에 수정할 수 있어야 하므로)
  */
 @Repository
+@Transactional(readOnly = true)
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
     List<Member> findByUserNameAndAgeGreaterThan(String userName, int age);
@@ -29,6 +44,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // named query를 먼저 찾고 없으면
     // spring data에서 메소드를 생성해서 제공하는 기능을 실행한다
     @Query(name = "Member.findByUsername")
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Member> findByUsername(@Param("userName") String userName);
 
     // repository에 쿼리 직접 입력하여 진행할 수 있음
@@ -43,17 +59,43 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new com.study.datajpa.dto.MemberDto(m.id, m.userName, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    // in절에 param을 통해 컬랙션을 사용할 수 있다
-    @Query("select m from Member m where m.userName in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
+    // 목록 조회용 DTO 페이징. 엔티티를 영속성 컨텍스트에 올리지 않으므로 스냅샷 / 프록시 비용이 없다
+    // 정렬은 Member 의 필드명으로 지정한다 (ex. sort=userName,desc)
+    @Query(value = "select new com.study.datajpa.dto.MemberDto(m.id, m.userName, t.name) from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
+    @Query("select new com.study.datajpa.dto.MemberDto(m.id, m.userName, t.name) from Member m left join m.team t")
+    Slice<MemberDto> findMemberDtoSlice(Pageable pageable);
+
+    // 검색 색인(MemberNameIndex) 이 찾은 id 를 한번에 조회한다. 결과 순서는 보장하지 않는다
+    @Query("select new com.study.datajpa.dto.MemberDto(m.id, m.userName, t.name) from Member m left join m.team t where m.id in :ids")
+    List<MemberDto> findMemberDtosByIds(@Param("ids") Collection<Long> ids);
+
+    // 단건 조회용 읽기 모델. near cache 에 올려두고 수정 / 삭제 시 MemberCacheEvictListener 가 지운다
+    // 버전 / 수정 시각도 같이 올려두어 조건부 요청(ETag / Last-Modified) 을 db 조회 없이 확인한다
+    @Cacheable(cacheNames = MemberCacheNames.READ_MODEL, key = "#p0", unless = "#result == null")
+    @Query("select new com.study.datajpa.dto.MemberReadModel(m.id, m.userName, m.version, m.lastModifiedDate)"
+            + " from Member m where m.id = :id")
+    Optional<MemberReadModel> findReadModelById(@Param("id") Long id);
+
+    // 목록 응답의 변경 확인용 (ETag). 엔티티를 읽지 않고 집계 한 줄만 조회한다
+    // 추가 / 수정은 max(lastModifiedDate) 로, 팀 추가 / 삭제 / 이름 변경은 팀 수와 버전 합으로 드러난다
+    // 회원 테이블은 max(lastModifiedDate) 인덱스만 읽고, 삭제를 드러내는 회원 수는 MemberAggregates 에서 받는다
+    @Query("select new com.study.datajpa.dto.MemberListVersion((select max(m.lastModifiedDate) from Member m),"
+            + " count(t), coalesce(sum(t.version), 0))"
+            + " from Team t")
+    MemberListVersion findListVersion();
 
     // 일반 jpa의 경우 throw error 처리됨
     // spring data jpa는 값이 비었을 때 size 0으로 리턴함
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<Member> findListByUserName(String userName);
 
     // spring data jpa는 값이 비었을 때 null로 리턴함
     Member findMemberByUserName(String userName);
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Member> findOptionalByUserName(String userName);
 
 
@@ -64,7 +106,14 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     Page<Member> findByAge(int age, Pageable pageable);
 
     // 총 element 갯수, 총 페이지 수 계산하지 않는다. 핸드폰 드래그 리스트 만들 때 적합
-//    Slice<Member> findByAge(int age, Pageable pageable);
+    // limit + 1 로 조회해서 다음 페이지 여부만 판단한다. 깊은 페이지까지 가야한다면 findByAgeWithCursor 를 사용
+    Slice<Member> findSliceByAge(int age, Pageable pageable);
+
+    // count 쿼리 없는 전체 조회. 전체 개수는 PageTotalCounter 로 필요한 방식에 맞게 붙인다
+    Slice<Member> findSliceBy(Pageable pageable);
+
+    // findSliceByAge 의 전체 개수 (MemberPageQueries.findByAge 의 EXACT / CACHED)
+    long countByAge(int age);
 
 
     // 벌크 연산의 주의점
@@ -72,10 +121,16 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     // 벌크연산만 하고 끝나는 로직이라면 문제가 없지만, 이후에 영속성 컨택스트를 설정할 경우가 된다면 벌크연산 후 무조건 clear를 진행해줘야한다
     // em.clear() 를 진행하거나 @Modifying(clearAutomatically = true)
     // ps. 마이바티스 등 다른 db 툴을 사용하게 된다면, flush / clear를 잊지 말자
+    // 벌크 연산은 엔티티 리스너가 동작하지 않으므로 near cache 도 직접 비워주고 집계도 다시 계산한다
+    @Transactional
     @Modifying(clearAutomatically = true) // 벌크 업데이트
-    @Query("update Member m set m.age = m.age + 10 where m.age >= :age")
+    @EvictMemberReadModels
+    @RecomputeMemberAggregates
+    @Query("update Member m set m.age = m.age + 10, m.version = m.version + 1, m.lastModifiedDate = local datetime"
+            + " where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
+    @SqlBudget(maxSelects = 1)
     @Query("select m from Member m left join fetch m.team t")
     List<Member> findMemberFetchJoin();
 
@@ -85,6 +140,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     List<Member> findAll();
 
     // jpql + EntityGraph
+    @SqlBudget(maxSelects = 1)
     @EntityGraph(attributePaths = {"team"})
     @Query("select m from Member m")
     List<Member> findMemberEntityGraph();
@@ -98,19 +154,28 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUserName(@Param("userName") String userName);
 
-    // DB에 락을 걸 수 있다
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    List<Member> findLockByUserName(String userName);
+    // open projection (@Value SpEL) 은 엔티티 전체를 조회한 뒤 row 마다 SpEL 을 평가한다
+    // 계산식을 select 절로 옮기면 closed projection 처럼 필요한 값만 조회한다
+    @Query("select concat(m.userName, ' ', str(m.age)) as userNameWithAge from Member m where m.userName = :username")
+    List<UserNameWithAge> findProjectionsByUsername(@Param("username")String username);
 
-    List<UserNameOnly> findProjectionsByUsername(@Param("username")String username);
+    // 동적 projection. 반환 타입을 호출하는 쪽에서 정한다 (closed 인터페이스 / DTO / 엔티티)
+    <T> List<T> findDynamicProjectionsByUserName(String userName, Class<T> type);
 
 
     @Query(value = "select * from Member where userName = ?", nativeQuery = true)
     Member findByNativeQuery(String userName);
 
-    @Query(value = "select m.member_id as id, m.userName, t.name as teamName " +
-            "from member m left join team t",
+    // on 절이 없으면 cross join 이 되어 회원마다 팀 수만큼 row 가 나오고 countQuery 와 맞지 않는다
+    @Query(value = "select m.member_id as id, m.user_name as userName, t.name as teamName " +
+            "from member m left join team t on m.team_id = t.team_id",
             countQuery = "select count(*) from member",
             nativeQuery = true)
     Page<MemberProjection> findByNativeProjection(Pageable pageable);
+
+    // count 쿼리 없는 버전. 전체 개수는 MemberPageQueries.findByNativeProjection 이 CountMode 에 맞게 붙인다
+    @Query(value = "select m.member_id as id, m.user_name as userName, t.name as teamName " +
+            "from member m left join team t on m.team_id = t.team_id",
+            nativeQuery = true)
+    Slice<MemberProjection> findSliceByNativeProjection(Pageable pageable);
 }
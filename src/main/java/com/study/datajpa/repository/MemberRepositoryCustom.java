@@ -1,10 +1,57 @@
 package com.study.datajpa.repository;
 
+import com.study.datajpa.dto.CursorSlice;
 import com.study.datajpa.entity.Member;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.stream.Stream;
 
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    // in절에 param을 통해 컬랙션을 사용할 수 있다
+    // 목록이 크면 나눠서 조회하거나 임시 테이블과 join 한다 (InListQueries)
+    List<Member> findByNames(List<String> names);
+
+    // 커서(keyset) 페이징. offset 을 쓰지 않기 때문에 뒤 페이지로 갈수록 느려지지 않고 count 쿼리도 없다
+    CursorSlice<Member> findAllWithCursor(String cursor, int size);
+
+    CursorSlice<Member> findByAgeWithCursor(int age, String cursor, int size);
+
+    // 대량 저장. save 를 반복하는 것과 달리 jdbc batch 로 insert 하고 batchSize 마다 영속성 컨텍스트를 비운다
+    int saveAllBatched(Iterable<Member> members, int batchSize);
+
+    // 전체 회원을 forward-only 커서로 fetchSize 만큼씩 읽는다. 트랜잭션 안에서 사용하고 반드시 close 해야한다
+    Stream<Member> streamAll(int fetchSize);
+
+    // 작업 큐 방식 조회. 다른 트랜잭션이 잠근 row 는 기다리지 않고 건너뛰며 최대 batchSize 개를 잠근다 (for update skip locked)
+    // 잠금은 트랜잭션이 끝날 때 풀리므로 반드시 트랜잭션 안에서 호출하고, 처리한 회원은 age 를 바꿔서 다음 조회 대상에서 빠지게 한다
+    List<Member> claimByAge(int age, int batchSize);
+
+    // DB에 락을 걸 수 있다
+    // 대기 시간이 없으면 먼저 잠근 트랜잭션이 끝날 때까지 무한정 기다리므로 3초로 제한한다
+    // 다른 대기 시간이 필요하면 lockByUserName, 여러 작업자가 나눠서 처리하려면 claimByAge 를 사용
+    // 락은 트랜잭션이 끝나면 풀리므로 호출하는 쪽의 트랜잭션 안에서만 사용한다
+    List<Member> findLockByUserName(String userName);
+
+    // 비관적 락으로 한 명만 잠근다. 낙관적 락(@Version) + 재시도와 비교용 (MemberService). 대기 시간은 3초
+    Optional<Member> findLockById(Long id);
+
+    // 잠금 대기 시간을 지정하는 findLockByUserName. 시간 안에 잠그지 못하면 PessimisticLockingFailureException
+    List<Member> lockByUserName(String userName, Duration timeout);
+
+    // 팀별 회원 수 / 나이 분포. db 를 조회하지 않고 MemberAggregates 가 유지하는 값을 읽는다
+    // 커밋된 변경만 반영되고 벌크 update 직후에는 다시 계산이 끝날 때까지 잠깐 이전 값일 수 있다
+    // teamId 가 null 이면 팀이 없는 회원 수
+    long countMembersOfTeam(Long teamId);
+
+    Map<Long, Long> countMembersByTeam();
+
+    // bucketSize 단위 나이 구간의 시작 -> 회원 수
+    SortedMap<Integer, Long> ageHistogram(int bucketSize);
 }
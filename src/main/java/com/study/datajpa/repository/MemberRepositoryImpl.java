@@ -1,23 +1,202 @@
 package com.study.datajpa.repository;
 
+import com.study.datajpa.aggregate.MemberAggregates;
+import com.study.datajpa.dto.CursorSlice;
 import com.study.datajpa.entity.Member;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.LockOptions;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * spring data 에 맞게 들어가기 위해서는 중요한 명명 규칙이 존재한다
  * 인터페이스의 이름은 어떻게 되는 상관이 없지만, 구현체의 이름은
  * 사용하게될 repository 명 + Impl 이다
+ * MemberRepository 의 @Transactional(readOnly = true) 는 여기 메소드에 적용되지 않으므로 클래스에 따로 붙인다
  */
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    static final String LOCK_TIMEOUT = "jakarta.persistence.lock.timeout";
+    static final Duration DEFAULT_LOCK_TIMEOUT = Duration.ofSeconds(3);
+
     private final EntityManager em;
+    private final InListQueries inListQueries;
+    private final MemberAggregates memberAggregates;
 
     @Override
     public List<Member> findMemberCustom() {
         return em.createQuery("select m from Member m").getResultList();
     }
+
+    // 트랜잭션 밖에서 호출되면 나눠진 조회를 여러 스레드에서 실행할 수 있도록 readOnly 트랜잭션을 새로 열지 않는다
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Member> findByNames(List<String> names) {
+        return inListQueries.find(names,
+                chunk -> em.createQuery("select m from Member m where m.userName in :names", Member.class)
+                        .setParameter("names", chunk)
+                        .getResultList(),
+                "select m.* from member m join %s t on m.user_name = t.val",
+                Member.class);
+    }
+
+    @Override
+    public CursorSlice<Member> findAllWithCursor(String cursor, int size) {
+        return findWithCursor(null, cursor, size);
+    }
+
+    @Override
+    public CursorSlice<Member> findByAgeWithCursor(int age, String cursor, int size) {
+        return findWithCursor(age, cursor, size);
+    }
+
+    @Override
+    @Transactional
+    public int saveAllBatched(Iterable<Member> members, int batchSize) {
+        return BatchInsertSupport.persistInBatches(em, members, batchSize);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> claimByAge(int age, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize는 1 이상이어야 합니다");
+        }
+        if (RowLockSupport.isH2(em)) {
+            List<Long> ids = RowLockSupport.claimIdsOnH2(em, "member", "member_id", "age", age, batchSize);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            // 이미 잠근 row 이므로 락 없이 읽는다
+            return em.createQuery("select m from Member m where m.id in :ids order by m.id", Member.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+        }
+        return em.createQuery("select m from Member m where m.age = :age order by m.id", Member.class)
+                .setParameter("age", age)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT, LockOptions.SKIP_LOCKED)
+                .setMaxResults(batchSize)
+                .getResultList();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> findLockByUserName(String userName) {
+        return lockByUserName(userName, DEFAULT_LOCK_TIMEOUT);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<Member> findLockById(Long id) {
+        int millis = Math.toIntExact(DEFAULT_LOCK_TIMEOUT.toMillis());
+        return withLockTimeout(millis, () -> em.createQuery("select m from Member m where m.id = :id", Member.class)
+                .setParameter("id", id)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT, millis)
+                .getResultStream()
+                .findFirst());
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Member> lockByUserName(String userName, Duration timeout) {
+        int millis = Math.toIntExact(timeout.toMillis());
+        return withLockTimeout(millis, () -> em.createQuery("select m from Member m where m.userName = :userName", Member.class)
+                .setParameter("userName", userName)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(LOCK_TIMEOUT, millis)
+                .getResultList());
+    }
+
+    // H2 는 쿼리 힌트의 대기 시간을 무시하므로 세션 설정으로 바꾼다
+    private <T> T withLockTimeout(int millis, Supplier<T> lock) {
+        return RowLockSupport.isH2(em) ? RowLockSupport.withH2LockTimeout(em, millis, lock) : lock.get();
+    }
+
+    // 읽은 회원은 바로 준영속 상태로 만들어서 영속성 컨텍스트가 커지지 않게 한다
+    // team 은 fetch join 으로 함께 가져오므로 detach 후에도 team 이름을 읽을 수 있다
+    // 메소드가 끝나도 커서를 읽어야 하므로 호출하는 쪽의 트랜잭션이 필요하다
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Stream<Member> streamAll(int fetchSize) {
+        return em.createQuery("select m from Member m left join fetch m.team order by m.id", Member.class)
+                .setHint("org.hibernate.fetchSize", fetchSize)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()
+                .peek(this::detach);
+    }
+
+    private void detach(Member member) {
+        em.detach(member);
+        if (member.getTeam() != null) {
+            em.detach(member.getTeam());
+        }
+    }
+
+    // (userName, id) 순으로 정렬하고 마지막으로 읽은 값 이후만 조회한다
+    // 다음 페이지 존재 여부는 size + 1 개를 가져와서 판단한다 (Slice 와 같은 방식)
+    // 정렬 기준이 될 수 없으므로 userName 이 null 인 회원은 제외된다
+    private CursorSlice<Member> findWithCursor(Integer age, String cursor, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("size는 1 이상이어야 합니다");
+        }
+        MemberCursor after = MemberCursor.decode(cursor);
+
+        String jpql = "select m from Member m where m.userName is not null";
+        if (age != null) {
+            jpql += " and m.age = :age";
+        }
+        if (after != null) {
+            jpql += " and (m.userName > :userName or (m.userName = :userName and m.id > :id))";
+        }
+        jpql += " order by m.userName asc, m.id asc";
+
+        TypedQuery<Member> query = em.createQuery(jpql, Member.class);
+        if (age != null) {
+            query.setParameter("age", age);
+        }
+        if (after != null) {
+            query.setParameter("userName", after.getUserName())
+                    .setParameter("id", after.getId());
+        }
+
+        List<Member> result = query.setMaxResults(size + 1).getResultList();
+        boolean hasNext = result.size() > size;
+        List<Member> content = hasNext ? result.subList(0, size) : result;
+        String nextCursor = hasNext ? MemberCursor.of(content.get(size - 1)).encode() : null;
+        return new CursorSlice<>(content, nextCursor, hasNext);
+    }
+
+    // 메모리 집계만 읽으므로 트랜잭션(커넥션) 을 열지 않는다
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public long countMembersOfTeam(Long teamId) {
+        return teamId == null ? memberAggregates.countWithoutTeam() : memberAggregates.countByTeam(teamId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Map<Long, Long> countMembersByTeam() {
+        return memberAggregates.countsByTeam();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public SortedMap<Integer, Long> ageHistogram(int bucketSize) {
+        return memberAggregates.ageHistogram(bucketSize);
+    }
 }
@@ -0,0 +1,82 @@
+package com.study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.NoResultException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * count 쿼리 없이 조회한 Slice 에 CountMode 에 맞는 전체 개수를 붙여서 Page 로 만들어준다
+ * 추정치는 테이블 단위 전체 개수이므로 조건이 있는 조회라면 EXACT / CACHED 를 사용해야 정확하다
+ * 캐시는 cacheKey 마다 따로 두므로 조건이 있는 조회는 조건 값을 key 에 넣는다
+ */
+@Component
+public class PageTotalCounter {
+
+    private final EntityManager em;
+    private final Duration cacheTtl;
+    private final Map<String, CachedTotal> cachedTotals = new ConcurrentHashMap<>();
+
+    public PageTotalCounter(EntityManager em, @Value("${paging.count-cache-ttl:30s}") Duration cacheTtl) {
+        this.em = em;
+        this.cacheTtl = cacheTtl;
+    }
+
+    public <T> Page<T> toPage(Slice<T> slice, CountMode mode, String table, LongSupplier exactCount) {
+        return toPage(slice, mode, table, table, exactCount);
+    }
+
+    public <T> Page<T> toPage(Slice<T> slice, CountMode mode, String table, String cacheKey, LongSupplier exactCount) {
+        long offset = slice.getPageable().isPaged() ? slice.getPageable().getOffset() : 0;
+        long seen = offset + slice.getNumberOfElements();
+
+        // 다음 페이지가 없으면 지금까지 읽은 개수가 전체 개수 (content 가 page size 보다 짧은 경우)
+        if (!slice.hasNext() && (slice.getNumberOfElements() > 0 || offset == 0)) {
+            return new PageImpl<>(slice.getContent(), slice.getPageable(), seen);
+        }
+
+        long total = switch (mode) {
+            case EXACT -> exactCount.getAsLong();
+            case CACHED -> cachedCount(cacheKey, exactCount);
+            case APPROXIMATE -> estimatedCount(table);
+        };
+        // 캐시 / 추정치가 실제보다 작더라도 다음 페이지는 있다고 알려줘야 한다
+        long atLeast = slice.hasNext() ? seen + 1 : seen;
+        return new PageImpl<>(slice.getContent(), slice.getPageable(), Math.max(total, atLeast));
+    }
+
+    private long cachedCount(String cacheKey, LongSupplier exactCount) {
+        long now = System.nanoTime();
+        CachedTotal cached = cachedTotals.get(cacheKey);
+        if (cached != null && now - cached.countedAt < cacheTtl.toNanos()) {
+            return cached.total;
+        }
+        long total = exactCount.getAsLong();
+        cachedTotals.put(cacheKey, new CachedTotal(total, now));
+        return total;
+    }
+
+    // h2 의 테이블 통계 (다른 db 라면 pg_class.reltuples, information_schema.tables.table_rows 등)
+    private long estimatedCount(String table) {
+        try {
+            Number estimate = (Number) em.createNativeQuery(
+                            "select row_count_estimate from information_schema.tables where upper(table_name) = upper(:table)")
+                    .setParameter("table", table)
+                    .getSingleResult();
+            return estimate == null ? 0 : estimate.longValue();
+        } catch (NoResultException e) {
+            return 0; // 테이블이 없으면 추정치도 없다
+        }
+    }
+
+    private record CachedTotal(long total, long countedAt) {
+    }
+}
@@ -0,0 +1,129 @@
+package com.study.datajpa.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 비관적 락 대기 시간 / skip locked 를 지원하지 않는 H2 용 보조 로직
+ * H2 는 for update 뒤의 nowait / wait n / skip locked 를 무시하거나 문법 오류로 처리하고
+ * 세션 단위 설정(SET LOCK_TIMEOUT) 으로만 대기 시간을 정한다
+ * 커넥션은 풀로 재사용되므로 바꾼 설정은 항상 원래 값으로 되돌린다
+ */
+final class RowLockSupport {
+
+    // 한번에 읽는 후보 수 (limit 의 배수)
+    private static final int CANDIDATE_FACTOR = 8;
+
+    private RowLockSupport() {
+    }
+
+    static boolean isH2(EntityManager em) {
+        return em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof H2Dialect;
+    }
+
+    // work 를 실행하는 동안만 현재 커넥션의 락 대기 시간을 millis 로 바꾼다 (0 이하는 H2 에서 기본값을 뜻하므로 1ms 로 올린다)
+    static <T> T withH2LockTimeout(EntityManager em, long millis, Supplier<T> work) {
+        Session session = em.unwrap(Session.class);
+        long previous = session.doReturningWork(connection -> {
+            long current = currentLockTimeout(connection);
+            setLockTimeout(connection, Math.max(1, millis));
+            return current;
+        });
+        try {
+            return work.get();
+        } finally {
+            session.doWork(connection -> setLockTimeout(connection, previous));
+        }
+    }
+
+    // skip locked 흉내: 잠그지 않고 후보 id 를 읽은 뒤 한 row 씩 1ms 대기로 잠가보고, 실패한 row 는 건너뛴다
+    // H2 는 실패한 문장만 취소하고 트랜잭션은 유지하므로 이미 잠근 row 는 그대로 남는다
+    // 잠그는 문장에서 조건을 다시 확인하므로 그 사이 다른 작업자가 처리하고 커밋한 row 는 빠진다
+    // 잠금 실패 한번이 수 ms 걸리므로 첫 후보 묶음에서는 임의의 위치부터 시작해서 다른 작업자가 잡은 row 를 덜 건드린다
+    // 순서가 섞이면 H2 가 deadlock 으로 보고 트랜잭션을 롤백하므로 잠그는 순서는 항상 id 오름차순이다
+    static List<Long> claimIdsOnH2(EntityManager em, String table, String idColumn, String column, Object value, int limit) {
+        String candidates = "select " + idColumn + " from " + table
+                + " where " + column + " = ? and " + idColumn + " > ? order by " + idColumn + " limit ?";
+        String lock = "select " + idColumn + " from " + table
+                + " where " + idColumn + " = ? and " + column + " = ? for update";
+
+        return withH2LockTimeout(em, 1, () -> em.unwrap(Session.class).doReturningWork(connection -> {
+            List<Long> claimed = new ArrayList<>();
+            try (PreparedStatement select = connection.prepareStatement(candidates);
+                 PreparedStatement forUpdate = connection.prepareStatement(lock)) {
+                boolean randomStart = true;
+                long after = Long.MIN_VALUE;
+                while (claimed.size() < limit) {
+                    List<Long> ids = new ArrayList<>();
+                    select.setObject(1, value);
+                    select.setLong(2, after);
+                    select.setInt(3, limit * CANDIDATE_FACTOR);
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {
+                            ids.add(rs.getLong(1));
+                        }
+                    }
+                    if (ids.isEmpty()) {
+                        // 건너뛴 앞쪽 row 만 남았으면 처음부터 다시 본다 (아무것도 잠그지 않았으므로 순서 문제가 없다)
+                        if (randomStart && claimed.isEmpty() && after != Long.MIN_VALUE) {
+                            randomStart = false;
+                            after = Long.MIN_VALUE;
+                            continue;
+                        }
+                        break;
+                    }
+                    int start = randomStart && after == Long.MIN_VALUE
+                            ? ThreadLocalRandom.current().nextInt(Math.max(1, ids.size() - limit + 1))
+                            : 0;
+                    for (int i = start; i < ids.size() && claimed.size() < limit; i++) {
+                        if (tryLock(forUpdate, ids.get(i), value)) {
+                            claimed.add(ids.get(i));
+                        }
+                    }
+                    after = ids.get(ids.size() - 1);
+                }
+            }
+            return claimed;
+        }));
+    }
+
+    private static boolean tryLock(PreparedStatement forUpdate, Long id, Object value) throws SQLException {
+        forUpdate.setLong(1, id);
+        forUpdate.setObject(2, value);
+        try (ResultSet rs = forUpdate.executeQuery()) {
+            return rs.next();
+        } catch (SQLException e) {
+            if (e.getErrorCode() == LockTimeoutExceptionOverride.H2_LOCK_TIMEOUT) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private static long currentLockTimeout(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                     "select setting_value from information_schema.settings where setting_name = 'LOCK_TIMEOUT'")) {
+            return rs.next() ? Long.parseLong(rs.getString(1)) : 0;
+        }
+    }
+
+    private static void setLockTimeout(Connection connection, long millis) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SET LOCK_TIMEOUT " + millis);
+        }
+    }
+}
@@ -23,6 +23,11 @@ public class TeamRepository {
         return team;
     }
 
+    @Transactional
+    public int saveAllBatched(Iterable<Team> teams, int batchSize) {
+        return BatchInsertSupport.persistInBatches(em, teams, batchSize);
+    }
+
     @Transactional
     public void delete(Team team) {
         em.remove(team);
@@ -1,9 +1,10 @@
 package com.study.datajpa.repository;
 
-import org.springframework.beans.factory.annotation.Value;
-
+/**
+ * closed projection
+ * userName 컬럼만 조회한다
+ */
 public interface UserNameOnly {
 
-    @Value("#{target.username + ' ' + target.age}")
     String getUserName();
 }
@@ -0,0 +1,11 @@
+package com.study.datajpa.repository;
+
+/**
+ * "이름 나이" 로 합친 값의 closed projection (ex. "m1 10")
+ * 예전에는 UserNameOnly 에 @Value("#{target.username + ' ' + target.age}") 로 계산했지만
+ * 같은 식을 MemberRepository.findProjectionsByUsername 의 select 절에서 계산한다
+ */
+public interface UserNameWithAge {
+
+    String getUserNameWithAge();
+}
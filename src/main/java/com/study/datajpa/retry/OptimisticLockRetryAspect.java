@@ -0,0 +1,104 @@
+package com.study.datajpa.retry;
+
+import jakarta.persistence.OptimisticLockException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.StaleStateException;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @RetryOnOptimisticLock 처리
+ * 트랜잭션 advice(LOWEST_PRECEDENCE) 보다 바깥에서 실행되어야 커밋 시점의 충돌까지 잡고, 재시도가 새 트랜잭션에서 실행된다
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class OptimisticLockRetryAspect {
+
+    private final RetryBudget retryBudget;
+
+    @Around("@annotation(com.study.datajpa.retry.RetryOnOptimisticLock)"
+            + " || @within(com.study.datajpa.retry.RetryOnOptimisticLock)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        // 바깥 트랜잭션 안이라면 같은 영속성 컨텍스트에서 다시 실행해도 의미가 없고, 트랜잭션은 이미 rollback-only 다
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        RetryOnOptimisticLock retry = findAnnotation(joinPoint);
+        if (retry == null) {
+            return joinPoint.proceed();
+        }
+        retryBudget.onCall();
+        long backoff = retry.backoffMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (RuntimeException e) {
+                if (!isOptimisticLockFailure(e) || attempt >= retry.maxAttempts() || !retryBudget.tryAcquireRetry()) {
+                    throw e;
+                }
+                log.debug("optimistic lock conflict, retry {}/{}: {}",
+                        attempt, retry.maxAttempts() - 1, joinPoint.getSignature().toShortString());
+                sleep(ThreadLocalRandom.current().nextLong(backoff + 1)); // 같이 충돌한 호출끼리 다시 부딪히지 않게 흩어준다
+                backoff = Math.min(retry.maxBackoffMillis(), (long) (backoff * retry.multiplier()));
+            }
+        }
+    }
+
+    private RetryOnOptimisticLock findAnnotation(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        Method specific = AopUtils.getMostSpecificMethod(method, targetClass);
+        RetryOnOptimisticLock retry = AnnotatedElementUtils.findMergedAnnotation(specific, RetryOnOptimisticLock.class);
+        if (retry == null) {
+            retry = AnnotatedElementUtils.findMergedAnnotation(method, RetryOnOptimisticLock.class);
+        }
+        if (retry == null) {
+            retry = AnnotatedElementUtils.findMergedAnnotation(targetClass, RetryOnOptimisticLock.class);
+        }
+        if (retry == null) {
+            retry = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), RetryOnOptimisticLock.class);
+        }
+        return retry;
+    }
+
+    // 커밋 시점 충돌은 RollbackException 등으로 감싸져서 올 수 있으므로 cause 를 따라간다
+    static boolean isOptimisticLockFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof OptimisticLockingFailureException
+                    || t instanceof OptimisticLockException
+                    || t instanceof StaleStateException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트", e);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.study.datajpa.retry;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 애플리케이션 전체의 재시도 한도 (token bucket)
+ * 첫 실행마다 ratio 만큼 적립하고 재시도마다 1 을 쓴다. 잔액이 없으면 재시도하지 않고 예외를 그대로 던진다
+ * 충돌이 심할 때 모든 호출이 maxAttempts 만큼 재시도해서 db 부하가 몇 배로 늘어나는 것을 막는다
+ * (평소에는 호출 수의 ratio 비율까지, 순간적으로는 capacity 만큼 재시도할 수 있다)
+ */
+@Component
+public class RetryBudget {
+
+    // 소수 적립을 위해 1 token = 1000
+    private static final long SCALE = 1000;
+
+    private final long depositPerCall;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public RetryBudget(@Value("${retry.budget.ratio:0.2}") double ratio,
+                       @Value("${retry.budget.capacity:100}") int capacity) {
+        if (ratio < 0 || capacity < 0) {
+            throw new IllegalArgumentException("ratio, capacity는 0 이상이어야 합니다");
+        }
+        this.depositPerCall = Math.round(ratio * SCALE);
+        this.capacity = capacity * SCALE;
+        this.balance = new AtomicLong(this.capacity);
+    }
+
+    // 첫 실행 시 호출
+    public void onCall() {
+        calls.increment();
+        balance.accumulateAndGet(depositPerCall, (current, deposit) -> Math.min(capacity, current + deposit));
+    }
+
+    // 재시도해도 되면 1 token 을 쓰고 true
+    public boolean tryAcquireRetry() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                rejected.increment();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                retries.increment();
+                return true;
+            }
+        }
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public double getAvailable() {
+        return (double) balance.get() / SCALE;
+    }
+}
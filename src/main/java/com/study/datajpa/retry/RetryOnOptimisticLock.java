@@ -0,0 +1,29 @@
+package com.study.datajpa.retry;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 낙관적 락 충돌(@Version) 이 나면 메소드를 처음부터 다시 실행한다
+ * 재시도마다 새 트랜잭션 / 영속성 컨텍스트에서 다시 읽어야 하므로 @Transactional 과 같이 쓰거나
+ * 트랜잭션 밖에서 호출되는 메소드에 붙인다 (이미 진행 중인 트랜잭션 안에서 호출되면 재시도하지 않는다)
+ * 대기 시간은 backoffMillis 부터 multiplier 배씩 늘어나며 (최대 maxBackoffMillis) 그 안에서 임의로 정한다
+ * 재시도 횟수는 RetryBudget 으로도 제한된다
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface RetryOnOptimisticLock {
+
+    // 첫 실행을 포함한 최대 실행 횟수
+    int maxAttempts() default 5;
+
+    long backoffMillis() default 5;
+
+    double multiplier() default 2.0;
+
+    long maxBackoffMillis() default 200;
+}
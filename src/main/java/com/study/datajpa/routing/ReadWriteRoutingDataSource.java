@@ -0,0 +1,68 @@
+package com.study.datajpa.routing;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @Transactional(readOnly = true) 트랜잭션은 replica 로, 나머지는 primary 로 보낸다
+ * 트랜잭션의 readOnly 여부는 커넥션을 실제로 얻는 시점에 알 수 있으므로 반드시 LazyConnectionDataSourceProxy 로 감싸서 사용한다
+ *
+ * replica 는 primary 보다 늦게 반영되므로 쓰기 트랜잭션이 커밋된 뒤 replicationLag 동안은
+ * 같은 스레드의 읽기 트랜잭션도 primary 로 보낸다 (save 직후 조회 시 방금 쓴 값이 보이도록)
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Long> LAST_WRITE_COMMIT = new ThreadLocal<>();
+
+    private final ReplicaPool replicaPool;
+    private final long replicationLagNanos;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaPool replicaPool, Duration replicationLag) {
+        this.replicaPool = replicaPool;
+        this.replicationLagNanos = replicationLag.toNanos();
+
+        Map<Object, Object> targets = new HashMap<>(replicaPool.dataSources());
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly() && !recentlyWritten()) {
+            String replica = replicaPool.select();
+            if (replica != null) {
+                return replica;
+            }
+        } else if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    LAST_WRITE_COMMIT.set(System.nanoTime());
+                }
+            });
+        }
+        return PRIMARY;
+    }
+
+    private boolean recentlyWritten() {
+        Long lastWrite = LAST_WRITE_COMMIT.get();
+        if (lastWrite == null) {
+            return false;
+        }
+        if (System.nanoTime() - lastWrite < replicationLagNanos) {
+            return true;
+        }
+        LAST_WRITE_COMMIT.remove();
+        return false;
+    }
+}
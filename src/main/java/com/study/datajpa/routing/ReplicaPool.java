@@ -0,0 +1,119 @@
+package com.study.datajpa.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 읽기 전용 replica 목록
+ * round robin 으로 나눠주고, 주기적으로 커넥션을 검사해서 응답하지 않는 replica 는 건너뛴다
+ */
+@Slf4j
+public class ReplicaPool implements AutoCloseable {
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final int validationTimeoutSeconds;
+    private final ScheduledExecutorService healthChecker;
+
+    public ReplicaPool(RoutingDataSourceProperties properties) {
+        List<RoutingDataSourceProperties.Replica> configured = properties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            replicas.add(new Replica("replica-" + i, createDataSource("replica-" + i, configured.get(i), properties)));
+        }
+        this.validationTimeoutSeconds = (int) Math.max(1, properties.getConnectionTimeout().toSeconds());
+
+        checkHealth(); // 시작하자마자 죽어있는 replica 로 보내지 않도록 한번 검사
+        long interval = properties.getHealthCheckInterval().toMillis();
+        this.healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        healthChecker.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static DataSource createDataSource(String name, RoutingDataSourceProperties.Replica replica,
+                                               RoutingDataSourceProperties properties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(name);
+        dataSource.setJdbcUrl(replica.getUrl());
+        dataSource.setUsername(replica.getUsername());
+        dataSource.setPassword(replica.getPassword());
+        dataSource.setReadOnly(true);
+        dataSource.setConnectionTimeout(properties.getConnectionTimeout().toMillis());
+        dataSource.setInitializationFailTimeout(-1); // 죽어있는 replica 가 있어도 애플리케이션은 뜬다
+        return dataSource;
+    }
+
+    // 다음 순서의 살아있는 replica. 모두 죽어있으면 null
+    String select() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica.key;
+            }
+        }
+        return null;
+    }
+
+    Map<Object, Object> dataSources() {
+        Map<Object, Object> dataSources = new LinkedHashMap<>();
+        replicas.forEach(replica -> dataSources.put(replica.key, replica.dataSource));
+        return dataSources;
+    }
+
+    public Map<String, Boolean> health() {
+        Map<String, Boolean> health = new LinkedHashMap<>();
+        replicas.forEach(replica -> health.put(replica.key, replica.healthy));
+        return Collections.unmodifiableMap(health);
+    }
+
+    void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(validationTimeoutSeconds);
+            } catch (Exception e) {
+                healthy = false;
+            }
+            if (healthy != replica.healthy) {
+                log.warn("replica {} is now {}", replica.key, healthy ? "UP" : "DOWN");
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    @Override
+    public void close() {
+        healthChecker.shutdownNow();
+        replicas.forEach(replica -> ((HikariDataSource) replica.dataSource).close());
+    }
+
+    private static final class Replica {
+        private final String key;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+
+        private Replica(String key, DataSource dataSource) {
+            this.key = key;
+            this.dataSource = dataSource;
+        }
+    }
+}
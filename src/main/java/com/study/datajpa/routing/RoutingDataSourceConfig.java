@@ -0,0 +1,62 @@
+package com.study.datajpa.routing;
+
+import com.study.datajpa.repository.LockTimeoutExceptionOverride;
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * datasource.routing.enabled=true 일 때만 기본 DataSource 를 읽기 / 쓰기 라우팅 DataSource 로 바꾼다
+ * primary 는 spring.datasource 설정으로 만든다
+ *
+ * 라우팅은 커넥션을 얻을 때 한번만 정해지는데, 하이버네이트는 기본으로 세션이 닫힐 때까지 커넥션을 잡고 있다
+ * open-in-view 처럼 한 EntityManager 가 여러 트랜잭션에 걸쳐 쓰이면 첫 readOnly 트랜잭션이 잡은 replica 커넥션으로
+ * 뒤의 쓰기까지 나가므로, 트랜잭션이 끝날 때마다 커넥션을 반납해서 다음 트랜잭션이 다시 고르게 한다
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(RoutingDataSourceProperties.class)
+public class RoutingDataSourceConfig {
+
+    @Bean
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName(ReadWriteRoutingDataSource.PRIMARY);
+        // spring.datasource.hikari 설정은 직접 만든 풀에 바인딩되지 않으므로 따로 지정한다
+        dataSource.setExceptionOverrideClassName(LockTimeoutExceptionOverride.class.getName());
+        return dataSource;
+    }
+
+    @Bean(destroyMethod = "close")
+    public ReplicaPool replicaPool(RoutingDataSourceProperties properties) {
+        return new ReplicaPool(properties);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaPool replicaPool,
+                                 RoutingDataSourceProperties properties) {
+        ReadWriteRoutingDataSource routing =
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaPool, properties.getReplicationLag());
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
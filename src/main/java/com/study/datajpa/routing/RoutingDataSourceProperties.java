@@ -0,0 +1,39 @@
+package com.study.datajpa.routing;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * datasource.routing 설정
+ * 쓰기(primary) 는 spring.datasource 를 그대로 사용하고 replicas 에 읽기 전용 db 를 나열한다
+ */
+@Getter
+@Setter
+@ConfigurationProperties("datasource.routing")
+public class RoutingDataSourceProperties {
+
+    private boolean enabled;
+
+    // 쓰기 트랜잭션이 커밋된 뒤 이 시간 동안은 같은 스레드의 읽기도 primary 로 보낸다 (read-your-writes)
+    private Duration replicationLag = Duration.ofSeconds(1);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    // replica 커넥션을 얻을 때 / health check 에서 기다리는 최대 시간
+    private Duration connectionTimeout = Duration.ofSeconds(3);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+    }
+}
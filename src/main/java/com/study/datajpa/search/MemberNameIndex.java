@@ -0,0 +1,168 @@
+package com.study.datajpa.search;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * 회원 이름 부분 검색용 메모리 색인 (trigram)
+ * 이름을 소문자로 바꿔서 3글자씩 잘라 글자 조합 -> 회원 id 목록으로 저장한다
+ * 검색어의 trigram 목록 중 가장 작은 목록만 훑고 실제 이름에 검색어가 들어있는지 다시 확인하므로
+ * like '%x%' 처럼 테이블 전체를 읽지 않는다 (검색어가 3글자 미만이면 메모리의 이름 목록을 훑는다)
+ *
+ * 애플리케이션이 뜰 때 db 에서 한번 읽어서 만들고, 이후에는 MemberNameIndexListener 가 커밋된 변경만 반영한다
+ * jpql 벌크 삭제처럼 엔티티 리스너를 거치지 않는 변경은 반영되지 않으므로 결과 id 는 반드시 db 에서 다시 조회해서 사용한다
+ */
+@Slf4j
+@Component
+public class MemberNameIndex {
+
+    static final int GRAM = 3;
+
+    // 이름으로 시작하는 회원을 먼저, 그 다음은 이름 / id 순
+    private static final Comparator<Match> ORDER = Comparator.comparing((Match match) -> !match.prefix)
+            .thenComparing(match -> match.name)
+            .thenComparing(match -> match.id);
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+
+    public MemberNameIndex(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // readOnly 트랜잭션은 replica 로 갈 수 있으므로(RoutingDataSourceConfig) 변경이 반영되는 primary 에서 읽는다
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = em.createQuery("select m.id, m.userName from Member m", Object[].class)
+                    .setHint("org.hibernate.fetchSize", 1000)
+                    .setHint("org.hibernate.readOnly", true)
+                    .getResultStream()) {
+                rows.forEach(row -> put((Long) row[0], (String) row[1]));
+            }
+        });
+        log.info("member name index built: {} members, {} grams in {}ms",
+                names.size(), postings.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 추가 / 이름 변경. 같은 회원을 동시에 바꾸는 경우 색인이 섞이지 않도록 쓰기는 직렬화한다
+    public synchronized void put(Long id, String userName) {
+        if (userName == null) {
+            remove(id);
+            return;
+        }
+        String name = normalize(userName);
+        String previous = names.put(id, name);
+        if (name.equals(previous)) {
+            return;
+        }
+        Set<String> grams = grams(name);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                if (!grams.contains(gram)) {
+                    removePosting(gram, id);
+                }
+            }
+        }
+        for (String gram : grams) {
+            postings.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String previous = names.remove(id);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                removePosting(gram, id);
+            }
+        }
+    }
+
+    // 이름에 query 가 들어있는 회원 id 를 최대 limit 개 (대소문자 구분 없음)
+    public List<Long> search(String query, int limit) {
+        String q = query == null ? "" : normalize(query.strip());
+        if (q.isEmpty() || limit < 1) {
+            return List.of();
+        }
+
+        // 정렬 기준으로 가장 뒤에 있는 것을 먼저 버리는 limit 크기의 힙
+        PriorityQueue<Match> top = new PriorityQueue<>(ORDER.reversed());
+        for (Long id : candidates(q)) {
+            String name = names.get(id);
+            if (name == null || !name.contains(q)) {
+                continue;
+            }
+            top.add(new Match(id, name, name.startsWith(q)));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(ORDER);
+        return matches.stream().map(match -> match.id).toList();
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    private Iterable<Long> candidates(String q) {
+        if (q.length() < GRAM) {
+            return names.keySet();
+        }
+        Set<Long> smallest = null;
+        for (String gram : grams(q)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            if (smallest == null || ids.size() < smallest.size()) {
+                smallest = ids;
+            }
+        }
+        return smallest;
+    }
+
+    private void removePosting(String gram, Long id) {
+        postings.computeIfPresent(gram, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    static Set<String> grams(String name) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            grams.add(name.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    private record Match(Long id, String name, boolean prefix) {
+    }
+}
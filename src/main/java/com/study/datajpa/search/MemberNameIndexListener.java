@@ -0,0 +1,50 @@
+package com.study.datajpa.search;
+
+import com.study.datajpa.entity.Member;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * save / delete / 변경 감지(changeTeam, 이름 변경) 를 MemberNameIndex 에 반영한다
+ * 롤백된 변경이 색인에 남지 않도록 커밋된 뒤에 반영한다
+ * 리스너는 EntityManagerFactory 를 만드는 중에 생성되므로 EntityManager 를 사용하는 색인은 나중에 꺼낸다
+ */
+public class MemberNameIndexListener {
+
+    private final ObjectProvider<MemberNameIndex> index;
+
+    public MemberNameIndexListener(ObjectProvider<MemberNameIndex> index) {
+        this.index = index;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void put(Member member) {
+        Long id = member.getId();
+        String userName = member.getUserName();
+        afterCommit(() -> index.getObject().put(id, userName));
+    }
+
+    @PostRemove
+    public void remove(Member member) {
+        Long id = member.getId();
+        afterCommit(() -> index.getObject().remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
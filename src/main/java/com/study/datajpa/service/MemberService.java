@@ -0,0 +1,40 @@
+package com.study.datajpa.service;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.retry.RetryOnOptimisticLock;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 같은 회원을 동시에 수정할 때의 두 가지 방식
+ * increaseAge : 락 없이 읽고 커밋 시 버전으로 충돌을 확인한다. 충돌하면 트랜잭션 전체를 다시 실행한다
+ * increaseAgeWithLock : select ... for update 로 잠그고 수정한다. 다른 트랜잭션은 커밋될 때까지 기다린다
+ * 충돌이 드물면 낙관적 락이 대기 없이 처리되고, 한 row 에 몰리면 재시도 비용 때문에 비관적 락이 유리하다
+ */
+@Service
+@RequiredArgsConstructor
+public class MemberService {
+
+    private final MemberRepository memberRepository;
+
+    @RetryOnOptimisticLock
+    @Transactional
+    public int increaseAge(Long memberId, int delta) {
+        Member member = memberRepository.findById(memberId).orElseThrow(() -> notFound(memberId));
+        member.setAge(member.getAge() + delta);
+        return member.getAge();
+    }
+
+    @Transactional
+    public int increaseAgeWithLock(Long memberId, int delta) {
+        Member member = memberRepository.findLockById(memberId).orElseThrow(() -> notFound(memberId));
+        member.setAge(member.getAge() + delta);
+        return member.getAge();
+    }
+
+    private static IllegalArgumentException notFound(Long memberId) {
+        return new IllegalArgumentException("회원이 없습니다: " + memberId);
+    }
+}
@@ -0,0 +1,37 @@
+package com.study.datajpa;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * 공유 db(tcp) 에 커밋하는 테스트가 쓰는 회원 나이 구간
+ * 클래스마다 겹치지 않는 구간 [from, from + SPAN) 을 나눠주고 끝나면 그 구간의 회원만 지운다
+ * 테스트 안에서 나이를 바꿔도 (벌크 +10, 재시도마다 +1 등) 구간을 넘지 않게 쓴다
+ */
+public enum FixtureAge {
+
+    BULK_UPDATER,
+    CLAIM,
+    CHUNK_PROCESSING,
+    READ_ONLY_TRANSACTION,
+    IN_LIST,
+    AGGREGATES,
+    NAME_INDEX,
+    CONDITIONAL_GET,
+    OPTIMISTIC_RETRY,
+    SECOND_LEVEL_CACHE;
+
+    private static final int BASE = 900_000;
+    public static final int SPAN = 1_000;
+
+    public int from() {
+        return BASE + ordinal() * SPAN;
+    }
+
+    // 벌크 delete 라 엔티티 리스너(near cache / 색인 / 집계) 는 동작하지 않는다. 트랜잭션 안에서 호출한다
+    public int deleteMembers(EntityManager em) {
+        return em.createQuery("delete from Member m where m.age >= :from and m.age < :to")
+                .setParameter("from", from())
+                .setParameter("to", from() + SPAN)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,200 @@
+package com.study.datajpa.aggregate;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.controller.MemberController;
+import com.study.datajpa.dto.MemberStatsDto;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋된 뒤에 반영되는지 확인하므로 테스트를 트랜잭션으로 묶지 않는다
+ * 매번 다시 계산한 값에서 시작해서 이 테스트의 나이 / 팀만 확인한다
+ */
+@SpringBootTest
+class MemberAggregatesTest {
+
+    static final int AGE = FixtureAge.AGGREGATES.from();
+
+    @Autowired
+    MemberAggregates memberAggregates;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberController memberController;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        teamA = teamRepository.save(new Team("aggregateA"));
+        teamB = teamRepository.save(new Team("aggregateB"));
+        memberAggregates.recompute();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            FixtureAge.AGGREGATES.deleteMembers(em);
+            em.createQuery("delete from Team t where t.name in ('aggregateA', 'aggregateB')")
+                    .executeUpdate();
+        });
+    }
+
+    // save / changeTeam / 나이 변경 / delete 가 커밋된 뒤에 반영되고 롤백된 변경은 반영되지 않는다
+    @Test
+    void incrementalUpdates() {
+        long total = memberAggregates.total();
+        long withoutTeam = memberRepository.countMembersOfTeam(null);
+
+        List<Member> members = memberRepository.saveAll(List.of(
+                new Member("aggregate1", AGE, teamA),
+                new Member("aggregate2", AGE, teamA),
+                new Member("aggregate3", AGE + 1)));
+        Member first = members.get(0);
+        Member second = members.get(1);
+        Member third = members.get(2);
+
+        assertThat(memberAggregates.total() - total).isEqualTo(3);
+        assertThat(memberRepository.countMembersOfTeam(teamA.getId())).isEqualTo(2);
+        assertThat(memberRepository.countMembersOfTeam(null) - withoutTeam).isEqualTo(1);
+        assertThat(countByAge(AGE)).isEqualTo(2);
+        assertThat(countByAge(AGE + 1)).isEqualTo(1);
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, first.getId()).changeTeam(em.getReference(Team.class, teamB.getId())));
+        assertThat(memberRepository.countMembersOfTeam(teamA.getId())).isEqualTo(1);
+        assertThat(memberRepository.countMembersByTeam()).containsEntry(teamB.getId(), 1L);
+
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, second.getId()).setAge(AGE + 1));
+        assertThat(countByAge(AGE)).isEqualTo(1);
+        assertThat(countByAge(AGE + 1)).isEqualTo(2);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            em.remove(em.find(Member.class, third.getId()));
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(memberAggregates.total() - total).isEqualTo(3);
+
+        memberRepository.deleteById(third.getId());
+        assertThat(memberAggregates.total() - total).isEqualTo(2);
+        assertThat(memberRepository.countMembersOfTeam(null)).isEqualTo(withoutTeam);
+        assertThat(countByAge(AGE + 1)).isEqualTo(1);
+
+        assertMatchesRecompute();
+    }
+
+    // 벌크 update 는 리스너를 거치지 않으므로 커밋 후 다시 계산된다
+    @Test
+    void bulkUpdateRecomputes() {
+        memberRepository.saveAll(List.of(new Member("aggregate1", AGE, teamA), new Member("aggregate2", AGE)));
+        assertThat(countByAge(AGE)).isEqualTo(2);
+
+        memberRepository.bulkAgePlus(AGE);
+
+        awaitUntil(() -> !memberAggregates.isStale() && countByAge(AGE + 10) == 2);
+        assertThat(countByAge(AGE)).isZero();
+        assertMatchesRecompute();
+    }
+
+    // 커밋된 변경이 반영되기 전에 다른 스레드에서 다시 계산이 끝나면 group by 에 들어간 변경이 한번 더 더해진다
+    // 그 사이에는 stale 로 남아 있다가 다시 계산되어 맞춰진다
+    @Test
+    void commitDuringRecompute() {
+        AtomicBoolean staleAfterRecompute = new AtomicBoolean();
+        transactionTemplate.executeWithoutResult(status -> {
+            // Delta 보다 먼저 등록해서 반영되기 전에 실행된다
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    CompletableFuture.runAsync(memberAggregates::recompute).join();
+                    staleAfterRecompute.set(memberAggregates.isStale());
+                }
+            });
+            memberRepository.saveAndFlush(new Member("aggregate1", AGE, teamA));
+        });
+
+        assertThat(staleAfterRecompute).isTrue();
+        awaitUntil(() -> !memberAggregates.isStale() && countByAge(AGE) == 1);
+        assertThat(memberRepository.countMembersOfTeam(teamA.getId())).isEqualTo(1);
+        assertMatchesRecompute();
+    }
+
+    // 엔드포인트는 sql 을 실행하지 않는다
+    @Test
+    void statsEndpointRunsNoSql() {
+        memberRepository.saveAll(List.of(new Member("aggregate1", AGE, teamA)));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long statements = statistics.getPrepareStatementCount();
+
+        MemberStatsDto stats = memberController.stats(1);
+
+        assertThat(statistics.getPrepareStatementCount() - statements).isZero();
+        assertThat(stats.getTotal()).isEqualTo(memberAggregates.total());
+        assertThat(stats.getByTeam()).containsEntry(teamA.getId(), 1L);
+        assertThat(stats.getByAge()).containsKey(AGE);
+    }
+
+    private long countByAge(int age) {
+        return memberRepository.ageHistogram(1).getOrDefault(age, 0L);
+    }
+
+    private void assertMatchesRecompute() {
+        long total = memberAggregates.total();
+        long withoutTeam = memberAggregates.countWithoutTeam();
+        var byTeam = memberAggregates.countsByTeam();
+        var byAge = memberAggregates.ageHistogram(1);
+
+        memberAggregates.recompute();
+
+        assertThat(memberAggregates.total()).isEqualTo(total);
+        assertThat(memberAggregates.countWithoutTeam()).isEqualTo(withoutTeam);
+        assertThat(memberAggregates.countsByTeam()).isEqualTo(byTeam);
+        assertThat(memberAggregates.ageHistogram(1)).isEqualTo(byAge);
+    }
+
+    private static void awaitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.get() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertThat(condition.get()).isTrue();
+    }
+}
@@ -0,0 +1,110 @@
+package com.study.datajpa.batch;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberJpaRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+/**
+ * chunk 마다 별도 트랜잭션으로 커밋되므로 테스트를 트랜잭션으로 묶지 않는다
+ */
+@SpringBootTest
+class MemberBulkUpdaterTest {
+
+    static final int AGE = FixtureAge.BULK_UPDATER.from();
+    static final int MEMBERS = 30;
+
+    @Autowired
+    MemberBulkUpdater memberBulkUpdater;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("bulk" + i, AGE));
+        }
+        memberJpaRepository.saveAllBatched(members, 10);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> FixtureAge.BULK_UPDATER.deleteMembers(em));
+    }
+
+    @Test
+    void parallelChunks() {
+        AtomicInteger calls = new AtomicInteger();
+        BulkUpdateOptions options = BulkUpdateOptions.defaults().withChunkSize(7).withParallelism(3);
+
+        BulkUpdateProgress progress = memberBulkUpdater.bulkAgePlus(AGE, options, p -> calls.incrementAndGet());
+
+        assertThat(progress.getRowsUpdated()).isEqualTo(MEMBERS);
+        assertThat(progress.getCheckpoint().isFinished()).isTrue();
+        assertThat(calls.get()).isEqualTo(progress.getCheckpoint().getChunkCount());
+        assertThat(ages()).containsOnly(AGE + 10);
+    }
+
+    // 실패한 뒤 checkpoint 로 이어서 실행하면 이미 커밋된 chunk 는 다시 실행하지 않는다
+    @Test
+    void resumeAfterFailure() {
+        BulkUpdateOptions options = BulkUpdateOptions.defaults().withChunkSize(10);
+        AtomicInteger committed = new AtomicInteger();
+
+        BulkUpdateException failure = catchThrowableOfType(() ->
+                memberBulkUpdater.bulkAgePlus(AGE, options, p -> {
+                    if (committed.incrementAndGet() == 2) {
+                        throw new IllegalStateException("stop");
+                    }
+                }), BulkUpdateException.class);
+        BulkUpdateCheckpoint checkpoint = failure.getProgress().getCheckpoint();
+        assertThat(checkpoint.getCompletedChunks()).isEqualTo(2);
+        assertThat(checkpoint.isFinished()).isFalse();
+        assertThat(checkpoint.getWatermarkId()).isEqualTo(checkpoint.getFirstId() + 19);
+
+        BulkUpdateProgress resumed = memberBulkUpdater.bulkAgePlus(AGE,
+                options.withResumeFrom(checkpoint), BulkUpdateProgressListener.NONE);
+
+        assertThat(resumed.getCheckpoint().isFinished()).isTrue();
+        assertThat(failure.getProgress().getRowsUpdated() + resumed.getRowsUpdated()).isEqualTo(MEMBERS);
+        assertThat(ages()).containsOnly(AGE + 10);
+    }
+
+    // 호출한 쪽 영속성 컨텍스트에 있던 엔티티는 detach 되어 다시 조회하면 바뀐 값을 본다
+    @Test
+    void detachesStaleEntities() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member before = memberJpaRepository.findByUserNameAndAgeGreaterThan("bulk0", AGE - 1).get(0);
+
+            memberBulkUpdater.bulkAgePlus(AGE, BulkUpdateOptions.defaults(), BulkUpdateProgressListener.NONE);
+
+            assertThat(em.contains(before)).isFalse();
+            assertThat(em.find(Member.class, before.getId()).getAge()).isEqualTo(AGE + 10);
+        });
+    }
+
+    private List<Integer> ages() {
+        return em.createQuery("select m.age from Member m where m.userName like 'bulk%' and m.age >= :age", Integer.class)
+                .setParameter("age", AGE)
+                .getResultList();
+    }
+}
@@ -0,0 +1,148 @@
+package com.study.datajpa.controller;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.aggregate.MemberAggregates;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 커밋된 변경으로 ETag 가 바뀌는지 확인하므로 테스트를 트랜잭션으로 묶지 않는다
+ * @AutoConfigureMockMvc 를 붙이면 컨텍스트를 따로 띄우므로 같은 컨텍스트로 MockMvc 를 직접 만든다
+ */
+@SpringBootTest
+class MemberConditionalGetTest {
+
+    static final int AGE = FixtureAge.CONDITIONAL_GET.from();
+
+    @Autowired
+    WebApplicationContext context;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberAggregates memberAggregates;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    MockMvc mockMvc;
+    Statistics statistics;
+    List<Member> members;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).build();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        members = memberRepository.saveAll(List.of(new Member("conditional1", AGE), new Member("conditional2", AGE)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> FixtureAge.CONDITIONAL_GET.deleteMembers(em));
+    }
+
+    // 바뀌지 않았으면 near cache 의 읽기 모델만 보고 304. 수정되면 ETag 가 바뀐다
+    @Test
+    void member() throws Exception {
+        String url = "/members/" + members.get(0).getId();
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().string("conditional1"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        long statements = statistics.getPrepareStatementCount();
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        assertThat(statistics.getPrepareStatementCount() - statements).isZero();
+
+        transactionTemplate.executeWithoutResult(status ->
+                em.find(Member.class, members.get(0).getId()).setUserName("renamed"));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string("renamed"))
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    // 목록은 변경 확인 조회 한번으로 304. 벌크 update / 삭제도 ETag 를 바꾼다
+    // 벌크 update 뒤에는 회원 수를 다시 계산하는 동안 ETag 가 없으므로 끝날 때까지 기다린다
+    @Test
+    void list() throws Exception {
+        awaitAggregates();
+        String etag = listEtag(null, 200);
+
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(listEtag(etag, 304)).isEqualTo(etag);
+        assertThat(statistics.getPrepareStatementCount() - statements).isEqualTo(1);
+
+        memberRepository.bulkAgePlus(AGE);
+        awaitAggregates();
+        String afterBulk = listEtag(etag, 200);
+        assertThat(afterBulk).isNotEqualTo(etag);
+
+        memberRepository.deleteById(members.get(1).getId());
+        assertThat(listEtag(afterBulk, 200)).isNotEqualTo(afterBulk);
+    }
+
+    // 삭제는 max(lastModifiedDate) 를 움직이지 않으므로 목록은 Last-Modified 를 보내지 않고 If-Modified-Since 도 보지 않는다
+    @Test
+    void listIgnoresIfModifiedSince() throws Exception {
+        mockMvc.perform(get("/members"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+
+        memberRepository.deleteById(members.get(1).getId());
+        String now = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC));
+        mockMvc.perform(get("/members").header(HttpHeaders.IF_MODIFIED_SINCE, now))
+                .andExpect(status().isOk());
+    }
+
+    private void awaitAggregates() throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (memberAggregates.isStale() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(memberAggregates.isStale()).isFalse();
+    }
+
+    private String listEtag(String ifNoneMatch, int expectedStatus) throws Exception {
+        var request = get("/members").param("size", "5");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request)
+                .andExpect(status().is(expectedStatus))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -3,6 +3,7 @@ package com.study.datajpa.entity;
 import com.study.datajpa.repository.MemberRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -55,6 +56,65 @@ class MemberTest {
 
     }
 
+    @Test
+    void changeTeamWithoutLoadingMembers() {
+        Team teamA = new Team("changeTeamA");
+        Team teamB = new Team("changeTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member = new Member("changeTeamMember", 10, teamA);
+        em.persist(member);
+
+        // 새로 만든 팀은 members 가 메모리에 있으므로 양쪽을 모두 맞춰준다
+        assertTrue(teamA.getMembers().contains(member));
+        member.changeTeam(teamB);
+        assertFalse(teamA.getMembers().contains(member));
+        assertTrue(teamB.getMembers().contains(member));
+
+        em.flush();
+        em.clear();
+
+        // 프록시 팀으로 옮겨도 members 는 조회하지 않는다 (add 는 쌓아두었다가 로딩될 때 반영)
+        // 이전 팀의 members 도 로딩하지 않는다 (프록시는 batch fetch 로 같이 초기화될 수 있다)
+        Member found = em.find(Member.class, member.getId());
+        Team previous = found.getTeam();
+        Team proxy = em.getReference(Team.class, teamA.getId());
+        found.changeTeam(proxy);
+        assertFalse(Hibernate.isInitialized(proxy.getMembers()));
+        assertFalse(Hibernate.isInitialized(previous.getMembers()));
+
+        // 준영속 팀의 로딩되지 않은 members 도 건드리지 않는다 (이전에는 LazyInitializationException)
+        em.flush();
+        em.clear();
+        Team detached = em.find(Team.class, teamB.getId());
+        em.detach(detached);
+        Member other = new Member("changeTeamOther", 20, detached);
+        assertFalse(Hibernate.isInitialized(detached.getMembers()));
+        assertSame(detached, other.getTeam());
+    }
+
+    // members 를 로딩하지 않은 팀으로 옮긴 뒤 flush 전에 members 를 읽어도 옮긴 회원이 들어있다
+    @Test
+    void changeTeamIsVisibleBeforeFlush() {
+        Team team = new Team("changeTeamVisible");
+        em.persist(team);
+        em.persist(new Member("changeTeamVisible1", 10, team));
+        Member moved = new Member("changeTeamVisible2", 20);
+        em.persist(moved);
+        em.flush();
+        em.clear();
+
+        Team found = em.find(Team.class, team.getId());
+        Member member = em.find(Member.class, moved.getId());
+        assertFalse(Hibernate.isInitialized(found.getMembers()));
+
+        member.changeTeam(found);
+
+        assertFalse(Hibernate.isInitialized(found.getMembers()));
+        assertTrue(found.getMembers().contains(member));
+        assertEquals(2, found.getMembers().size());
+    }
+
     @Test
     void eventBaseEntity() throws InterruptedException {
         Member mem1 = new Member("mem1");
@@ -0,0 +1,36 @@
+package com.study.datajpa.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MonotonicUlidTest {
+
+    // 여러 스레드에서 만들어도 중복 없이 생성 순서대로 정렬된다
+    @Test
+    void monotonicIds() {
+        ConcurrentLinkedQueue<List<String>> perThread = new ConcurrentLinkedQueue<>();
+        IntStream.range(0, 8).parallel().forEach(t -> {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                ids.add(MonotonicUlid.next());
+            }
+            perThread.add(ids);
+        });
+
+        List<String> all = new ArrayList<>();
+        for (List<String> ids : perThread) {
+            assertThat(ids).isSorted();
+            all.addAll(ids);
+        }
+        assertThat(all).doesNotHaveDuplicates().allSatisfy(id -> assertThat(id).hasSize(MonotonicUlid.LENGTH));
+
+        long now = System.currentTimeMillis();
+        assertThat(MonotonicUlid.timestampOf(MonotonicUlid.next())).isBetween(now - 1000, now + 1000);
+    }
+}
@@ -0,0 +1,79 @@
+package com.study.datajpa.monitoring;
+
+import com.study.datajpa.dto.RepositoryMethodStatsDto;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberJpaRepository;
+import com.study.datajpa.repository.MemberRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsTest {
+
+    @Autowired
+    RepositoryMetrics repositoryMetrics;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @PersistenceContext
+    EntityManager em;
+
+    @Test
+    void recordsRepositoryMethods() {
+        for (int i = 0; i < 3; i++) {
+            em.persist(new Member("metrics" + i, 7301));
+        }
+        em.flush();
+        em.clear();
+        repositoryMetrics.snapshot(true);
+
+        for (int i = 0; i < 10; i++) {
+            memberRepository.findSliceByAge(7301, PageRequest.of(0, 2));
+            memberJpaRepository.findByUserNameAndAgeGreaterThan("metrics0", 7300);
+        }
+
+        List<RepositoryMethodStatsDto> stats = repositoryMetrics.snapshot(true);
+        RepositoryMethodStatsDto slice = find(stats, "MemberRepository", "findSliceByAge(int, Pageable)");
+        assertThat(slice.getCalls()).isEqualTo(10);
+        assertThat(slice.getRowsPerCall()).isEqualTo(2);
+        assertThat(slice.getStatementsPerCall()).isEqualTo(1);
+        assertThat(slice.getP50Micros()).isPositive().isLessThanOrEqualTo(slice.getP99Micros());
+        assertThat(slice.getP999Micros()).isLessThanOrEqualTo(slice.getMaxMicros());
+
+        RepositoryMethodStatsDto jpa = find(stats, "MemberJpaRepository", "findByUserNameAndAgeGreaterThan(String, int)");
+        assertThat(jpa.getCalls()).isEqualTo(10);
+        assertThat(jpa.getRows()).isEqualTo(10);
+
+        // reset 이후에는 비어있다
+        assertThat(repositoryMetrics.snapshot(false)).isEmpty();
+    }
+
+    @Test
+    void histogramBuckets() {
+        // 버킷 경계는 빈틈없이 이어지고 상대 오차는 1/16 이내
+        for (long value = 0; value < 1_000_000; value += 7) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertThat(upper).isGreaterThanOrEqualTo(value);
+            assertThat(upper - value).isLessThanOrEqualTo(Math.max(value / 16, 0));
+        }
+    }
+
+    private RepositoryMethodStatsDto find(List<RepositoryMethodStatsDto> stats, String repository, String method) {
+        return stats.stream()
+                .filter(s -> s.getRepository().equals(repository) && s.getMethod().equals(method))
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.study.datajpa.monitoring;
+
+import com.study.datajpa.controller.MetricsController;
+import com.study.datajpa.dto.EntityStatsDto;
+import com.study.datajpa.dto.QueryStatsDto;
+import com.study.datajpa.dto.SlowQueryStatsDto;
+import com.study.datajpa.repository.MemberRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 모든 조회가 느린 조회로 잡히도록 기준 시간을 0 으로 둔다
+// 설정이 달라 컨텍스트를 따로 띄우므로 ddl-auto: create 가 다른 테스트가 쓰는 tcp db 를 다시 만들지 않도록 메모리 db 를 사용한다
+@SpringBootTest(properties = {
+        "monitoring.slow-query.threshold=0ms",
+        "spring.datasource.url=jdbc:h2:mem:slowquery;DB_CLOSE_DELAY=-1",
+})
+class SlowQueryLogTest {
+
+    static final String FIND_USER = "select m from Member m where m.userName = :userName and m.age = :age";
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MetricsController metricsController;
+    @Autowired
+    SlowQueryLog slowQueryLog;
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    void thresholdAndSampling() {
+        SlowQueryLog log = new SlowQueryLog(properties(Duration.ofMillis(10), 1.0));
+        try {
+            log.record("fast", 1, 9);
+            log.record("slow", 1, 10);
+            assertThat(log.stats().getSlowQueries()).isEqualTo(1);
+            awaitUntil(() -> log.stats().getLogged() == 1);
+        } finally {
+            log.destroy();
+        }
+
+        SlowQueryLog none = new SlowQueryLog(properties(Duration.ofMillis(10), 0));
+        try {
+            none.record("slow", 1, 50);
+            SlowQueryStatsDto stats = none.stats();
+            assertThat(stats.getSlowQueries()).isEqualTo(1);
+            assertThat(stats.getSampledOut()).isEqualTo(1);
+            assertThat(stats.getLogged() + stats.getQueued()).isZero();
+        } finally {
+            none.destroy();
+        }
+    }
+
+    // 하이버네이트 통계가 조회마다 느린 조회 로그로 넘기고, 조회 / 엔티티별 통계를 조회할 수 있다
+    @Test
+    void hibernateStatistics() {
+        assertThat(emf.unwrap(SessionFactory.class).getStatistics()).isInstanceOf(SlowQueryStatistics.class);
+        long slowBefore = slowQueryLog.stats().getSlowQueries();
+
+        memberRepository.findUser("slowQueryTest", 10);
+        memberRepository.findUser("slowQueryTest", 20);
+
+        assertThat(slowQueryLog.stats().getSlowQueries() - slowBefore).isGreaterThanOrEqualTo(2);
+        List<QueryStatsDto> queries = metricsController.queries(Integer.MAX_VALUE);
+        assertThat(queries).filteredOn(stats -> stats.getQuery().equals(FIND_USER))
+                .singleElement()
+                .satisfies(stats -> assertThat(stats.getExecutions()).isGreaterThanOrEqualTo(2));
+        assertThat(metricsController.entities()).extracting(EntityStatsDto::getEntity)
+                .contains("Member", "Team", "Item");
+    }
+
+    private static SlowQueryProperties properties(Duration threshold, double sampleRate) {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setThreshold(threshold);
+        properties.setSampleRate(sampleRate);
+        return properties;
+    }
+
+    private static void awaitUntil(Supplier<Boolean> condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.get() && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(condition.get()).isTrue();
+    }
+}
@@ -0,0 +1,50 @@
+package com.study.datajpa.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 테스트 메소드에 선언된 @SqlBudget 을 넘는 sql 이 실행되면 테스트를 실패시킨다
+ * 측정은 테스트 메소드 본문만 대상이므로 데이터 준비는 @BeforeEach 에서 한다
+ *
+ * <pre>
+ * &#64;ExtendWith(SqlBudgetExtension.class)
+ * class SomeTest {
+ *     &#64;Test &#64;SqlBudget(maxSelects = 1)
+ *     void fetchJoin() { ... }
+ * }
+ * </pre>
+ */
+public class SqlBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (budgetOf(context) != null) {
+            context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatementCounter.open(context.getDisplayName()));
+        }
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementScope scope = context.getStore(NAMESPACE).remove(context.getUniqueId(), SqlStatementScope.class);
+        if (scope == null) {
+            return;
+        }
+        scope.close();
+
+        SqlBudget budget = budgetOf(context);
+        if (scope.exceeds(budget)) {
+            fail("SQL budget exceeded (maxStatements=" + budget.maxStatements()
+                    + ", maxSelects=" + budget.maxSelects() + "): " + scope.describe());
+        }
+    }
+
+    private SqlBudget budgetOf(ExtensionContext context) {
+        return context.getTestMethod().map(method -> method.getAnnotation(SqlBudget.class)).orElse(null);
+    }
+}
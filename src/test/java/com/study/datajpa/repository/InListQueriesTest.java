@@ -0,0 +1,125 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.entity.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 작은 chunkSize / tempTableThreshold 로 만든 InListQueries 로 세 가지 방식을 확인한다
+ * 별도 스레드 / 트랜잭션에서 조회하므로 테스트를 트랜잭션으로 묶지 않는다
+ */
+@SpringBootTest
+class InListQueriesTest {
+
+    static final int MEMBERS = 30;
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    MemberRepository memberRepository;
+
+    InListQueries inListQueries;
+    Set<String> queryThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("inList" + i, FixtureAge.IN_LIST.from()));
+        }
+        memberRepository.saveAllBatched(members, 50);
+
+        InListProperties properties = new InListProperties();
+        properties.setChunkSize(4);
+        properties.setParallelism(3);
+        properties.setTempTableThreshold(20);
+        inListQueries = new InListQueries(em, entityManagerFactory, properties, transactionManager);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        if (inListQueries != null) {
+            inListQueries.destroy();
+        }
+        transactionTemplate.executeWithoutResult(status -> FixtureAge.IN_LIST.deleteMembers(em));
+    }
+
+    @Test
+    void singleInClause() {
+        assertThat(find(names(0, 3))).hasSize(3);
+        assertThat(queryThreads).containsExactly(Thread.currentThread().getName());
+    }
+
+    // 중복 / 없는 이름은 결과에 영향을 주지 않는다
+    @Test
+    void chunksRunInParallelOutsideTransaction() {
+        List<String> names = names(0, 10);
+        names.addAll(names(0, 5));
+        names.add("noSuchMember");
+
+        List<Member> members = find(names);
+
+        assertThat(members).hasSize(10).extracting(Member::getId).doesNotHaveDuplicates();
+        assertThat(queryThreads).allMatch(name -> name.startsWith("in-list-query"));
+    }
+
+    // 트랜잭션 안이라면 결과가 현재 영속성 컨텍스트에 들어가도록 같은 스레드에서 조회한다
+    @Test
+    void chunksRunSequentiallyInsideTransaction() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = find(names(0, 10));
+            assertThat(members).hasSize(10).allMatch(em::contains);
+        });
+        assertThat(queryThreads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void tempTableJoin() {
+        assertThat(find(names(0, MEMBERS))).hasSize(MEMBERS);
+        assertThat(queryThreads).isEmpty();
+
+        // 같은 트랜잭션에서 두 번 사용해도 된다
+        transactionTemplate.executeWithoutResult(status -> {
+            assertThat(find(names(0, 25))).hasSize(25);
+            assertThat(find(names(5, MEMBERS))).hasSize(25).allMatch(em::contains);
+        });
+    }
+
+    private List<Member> find(List<String> names) {
+        Function<List<String>, List<Member>> inQuery = chunk -> {
+            queryThreads.add(Thread.currentThread().getName());
+            return em.createQuery("select m from Member m where m.userName in :names", Member.class)
+                    .setParameter("names", chunk)
+                    .getResultList();
+        };
+        return inListQueries.find(names, inQuery, "select m.* from member m join %s t on m.user_name = t.val", Member.class);
+    }
+
+    private static List<String> names(int from, int to) {
+        return new ArrayList<>(IntStream.range(from, to).mapToObj(i -> "inList" + i).toList());
+    }
+}
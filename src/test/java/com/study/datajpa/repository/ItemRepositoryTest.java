@@ -1,10 +1,16 @@
 package com.study.datajpa.repository;
 
 import com.study.datajpa.entity.Item;
+import com.study.datajpa.monitoring.SqlStatementCounter;
+import com.study.datajpa.monitoring.SqlStatementScope;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -16,5 +22,20 @@ class ItemRepositoryTest {
         itemRepository.save(item);
     }
 
+    @Test
+    void insertAll() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            items.add(Item.create());
+        }
+
+        try (SqlStatementScope scope = SqlStatementCounter.open("insertAll")) {
+            assertThat(itemRepository.insertAll(items, 50)).isEqualTo(120);
 
-}
\ No newline at end of file
+            // merge 를 타지 않으므로 insert 전 select 가 없고, insert 는 batch 단위로 준비된다 (50 + 50 + 20)
+            assertThat(scope.getSelects()).isZero();
+            assertThat(scope.getInserts()).isEqualTo(3);
+        }
+        assertThat(itemRepository.findAllById(items.stream().map(Item::getId).toList())).hasSize(120);
+    }
+}
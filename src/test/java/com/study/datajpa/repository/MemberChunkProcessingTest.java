@@ -0,0 +1,148 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 청크마다 커밋하는 경우를 확인하므로 테스트를 트랜잭션으로 묶지 않는다
+ * 전체 회원을 돌지만 이 테스트의 나이 값을 가진 회원만 바꾼다
+ */
+@SpringBootTest
+class MemberChunkProcessingTest {
+
+    static final int PENDING = FixtureAge.CHUNK_PROCESSING.from();
+    static final int DONE = PENDING + 1;
+    static final int MEMBERS = 130;
+    static final int CHUNK_SIZE = 25;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("chunk" + i, PENDING));
+        }
+        memberJpaRepository.saveAllBatched(members, 50);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> FixtureAge.CHUNK_PROCESSING.deleteMembers(em));
+    }
+
+    // 청크 처리 후 영속성 컨텍스트를 비우므로 관리 중인 엔티티는 한 청크를 넘지 않는다
+    @Test
+    void scrollKeepsOneChunkInPersistenceContext() {
+        AtomicInteger maxManaged = new AtomicInteger();
+
+        long count = memberJpaRepository.scrollInChunks(CHUNK_SIZE, chunk -> {
+            assertThat(chunk).hasSizeLessThanOrEqualTo(CHUNK_SIZE);
+            maxManaged.accumulateAndGet(managedEntities(), Math::max);
+            markDone(chunk);
+        });
+
+        assertThat(count).isGreaterThanOrEqualTo(MEMBERS);
+        assertThat(maxManaged.get()).isLessThanOrEqualTo(CHUNK_SIZE);
+        assertThat(countByAge(DONE)).isEqualTo(MEMBERS);
+    }
+
+    @Test
+    void processInChunksWithWorkers() {
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        long count = memberJpaRepository.processInChunks(CHUNK_SIZE, 4, chunk -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                assertThat(chunk).hasSizeLessThanOrEqualTo(CHUNK_SIZE);
+                for (Member member : chunk) {
+                    if (!seen.add(member.getId())) {
+                        duplicates.incrementAndGet();
+                    }
+                }
+                markDone(chunk);
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        assertThat(duplicates.get()).isZero();
+        assertThat(count).isEqualTo(seen.size()).isGreaterThanOrEqualTo(MEMBERS);
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(4);
+        assertThat(countByAge(DONE)).isEqualTo(MEMBERS);
+    }
+
+    // 실패한 청크만 롤백되고 앞서 커밋된 청크는 남는다
+    @Test
+    void failureStopsAfterCommittedChunks() {
+        assertThatThrownBy(() -> memberJpaRepository.processInChunks(CHUNK_SIZE, 1, chunk -> {
+            markDone(chunk);
+            if (chunk.stream().anyMatch(member -> "chunk60".equals(member.getUserName()))) {
+                throw new IllegalStateException("fail");
+            }
+        })).isInstanceOf(InvalidDataAccessApiUsageException.class) // @Repository 예외 변환
+                .hasCauseInstanceOf(IllegalStateException.class);
+
+        assertThat(countByAge(DONE)).isBetween(1L, (long) MEMBERS - 1);
+        Integer failedAge = transactionTemplate.execute(status ->
+                em.createQuery("select m.age from Member m where m.userName = 'chunk60'", Integer.class).getSingleResult());
+        assertThat(failedAge).isEqualTo(PENDING);
+    }
+
+    // 작업자 스레드에서 난 Error 도 일부만 처리한 개수를 돌려주지 않고 그대로 던진다
+    @Test
+    void errorInWorkerIsRethrown() {
+        assertThatThrownBy(() -> memberJpaRepository.processInChunks(CHUNK_SIZE, 4, chunk -> {
+            if (chunk.stream().anyMatch(member -> "chunk60".equals(member.getUserName()))) {
+                throw new AssertionError("fail");
+            }
+            markDone(chunk);
+        })).isInstanceOf(AssertionError.class).hasMessage("fail");
+    }
+
+    private static void markDone(List<Member> chunk) {
+        for (Member member : chunk) {
+            if (member.getAge() == PENDING) {
+                member.setAge(DONE);
+            }
+        }
+    }
+
+    private int managedEntities() {
+        return em.unwrap(SessionImplementor.class).getPersistenceContextInternal().getNumberOfManagedEntities();
+    }
+
+    private long countByAge(int age) {
+        return transactionTemplate.execute(status ->
+                em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+}
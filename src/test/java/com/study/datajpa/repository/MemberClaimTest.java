@@ -0,0 +1,194 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.entity.Member;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 여러 스레드가 각자 트랜잭션으로 잠그므로 테스트를 트랜잭션으로 묶지 않는다
+ */
+@SpringBootTest
+class MemberClaimTest {
+
+    static final int PENDING = FixtureAge.CLAIM.from();
+    static final int DONE = PENDING + 1;
+    static final int MEMBERS = 120;
+    static final int BATCH_SIZE = 5;
+    static final int WORKERS = 4;
+    // 작업자들이 잠근 채로 겹치도록 batch 마다 잠깐 기다린다 (작업자 수별 처리 시간은 MemberClaimBenchmark)
+    static final long WORK_MILLIS_PER_BATCH = 20;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("claim" + i, PENDING));
+        }
+        memberRepository.saveAllBatched(members, 50);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> FixtureAge.CLAIM.deleteMembers(em));
+    }
+
+    // 여러 작업자가 동시에 가져가도 모든 row 가 정확히 한번씩 처리된다
+    @Test
+    void everyRowIsProcessedOnce() throws Exception {
+        Map<Long, Integer> processed = new ConcurrentHashMap<>();
+        process(WORKERS, processed);
+
+        assertThat(processed).hasSize(MEMBERS);
+        assertThat(processed.values()).containsOnly(1);
+        assertThat(countByAge(DONE)).isEqualTo(MEMBERS);
+    }
+
+    // 다른 트랜잭션이 잠그고 있는 동안 가져간 batch 는 겹치지 않는다
+    @Test
+    void concurrentClaimsAreDisjoint() throws Exception {
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Long>> holder = executor.submit(() -> transactionTemplate.execute(status -> {
+                List<Long> ids = ids(memberRepository.claimByAge(PENDING, BATCH_SIZE));
+                claimed.countDown();
+                await(release);
+                return ids;
+            }));
+            assertThat(claimed.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Long> second = transactionTemplate.execute(status -> ids(memberRepository.claimByAge(PENDING, BATCH_SIZE)));
+            release.countDown();
+            List<Long> first = holder.get(5, TimeUnit.SECONDS);
+
+            assertThat(first).hasSize(BATCH_SIZE);
+            assertThat(second).hasSize(BATCH_SIZE).doesNotContainAnyElementsOf(first);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    // 잠긴 row 는 lockByUserName / findLockById 가 정해진 시간 뒤에 실패하고 claimByAge 는 건너뛴다
+    @Test
+    void lockedRowIsSkippedOrTimesOut() throws Exception {
+        Long lockedId = transactionTemplate.execute(status -> memberRepository.findLockByUserName("claim0").get(0).getId());
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                memberRepository.lockByUserName("claim0", Duration.ofSeconds(1));
+                locked.countDown();
+                await(release);
+            }));
+            assertThat(locked.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                    memberRepository.lockByUserName("claim0", Duration.ofMillis(200))))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            // 잠금을 쥔 쪽은 release 를 최대 10초 기다리므로 대기 시간이 없다면 여기서 실패하지 않는다
+            assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                    memberRepository.findLockById(lockedId)))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+
+            List<Long> claimed = transactionTemplate.execute(status -> ids(memberRepository.claimByAge(PENDING, MEMBERS)));
+            assertThat(claimed).hasSize(MEMBERS - 1).doesNotContain(lockedId);
+
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    // 작업자마다 batch 를 잠그고, 작업 시간을 흉내낸 뒤 처리 완료로 표시하고 커밋한다
+    // processed 에는 회원 id 별로 처리한 횟수를 센다
+    private void process(int workers, Map<Long, Integer> processed) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < workers; w++) {
+                futures.add(executor.submit(() -> {
+                    while (true) {
+                        Integer claimed = transactionTemplate.execute(status -> {
+                            List<Member> batch = memberRepository.claimByAge(PENDING, BATCH_SIZE);
+                            for (Member member : batch) {
+                                processed.merge(member.getId(), 1, Integer::sum);
+                                member.setAge(DONE);
+                            }
+                            sleep(WORK_MILLIS_PER_BATCH);
+                            return batch.size();
+                        });
+                        if (claimed == null || claimed == 0) {
+                            return;
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Long> ids(List<Member> members) {
+        return members.stream().map(Member::getId).toList();
+    }
+
+    private long countByAge(int age) {
+        return transactionTemplate.execute(status ->
+                em.createQuery("select count(m) from Member m where m.age = :age", Long.class)
+                        .setParameter("age", age)
+                        .getSingleResult());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
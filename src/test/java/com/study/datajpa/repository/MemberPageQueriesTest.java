@@ -0,0 +1,88 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberPageQueriesTest {
+
+    @Autowired
+    MemberPageQueries memberPageQueries;
+    @Autowired
+    MemberRepository memberRepository;
+    @PersistenceContext
+    EntityManager em;
+
+    // left join 에 on 절이 있어서 회원마다 한 row 만 나오고 전체 개수와 맞는다
+    @Test
+    void nativeProjectionJoinsEachMemberOnce() {
+        Team teamA = new Team("nativeTeamA");
+        Team teamB = new Team("nativeTeamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member = new Member("native1", 10, teamA);
+        em.persist(member);
+        em.persist(new Member("native2", 10, teamB));
+        em.persist(new Member("native3", 10));
+        em.flush();
+        em.clear();
+
+        long total = memberRepository.count();
+        PageRequest all = PageRequest.of(0, (int) total + 10);
+
+        Page<MemberProjection> page = memberPageQueries.findByNativeProjection(all, CountMode.EXACT);
+        assertThat(page.getContent()).hasSize((int) total)
+                .extracting(MemberProjection::getId).doesNotHaveDuplicates();
+        assertThat(page.getTotalElements()).isEqualTo(total);
+        assertThat(page.getContent()).filteredOn(row -> row.getId().equals(member.getId()))
+                .extracting(MemberProjection::getTeamName).containsExactly("nativeTeamA");
+
+        Page<MemberProjection> counted = memberRepository.findByNativeProjection(all);
+        assertThat(counted.getContent()).hasSize((int) total);
+        assertThat(counted.getTotalElements()).isEqualTo(total);
+
+        Page<MemberProjection> first = memberPageQueries.findByNativeProjection(PageRequest.of(0, 2), CountMode.EXACT);
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.getTotalElements()).isEqualTo(total);
+    }
+
+    // 나이 조건의 개수를 나이별로 캐시한다. APPROXIMATE 도 테이블 추정치 대신 같은 캐시를 사용한다
+    @Test
+    void findByAgeCountsPerAge() {
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("pageAge" + i, 7401));
+        }
+        em.persist(new Member("pageAgeOther", 7402));
+        em.flush();
+
+        PageRequest firstPage = PageRequest.of(0, 2, Sort.by("userName"));
+        assertThat(memberPageQueries.findByAge(7401, firstPage, CountMode.EXACT).getTotalElements()).isEqualTo(5);
+        assertThat(memberPageQueries.findByAge(7401, firstPage, CountMode.CACHED).getTotalElements()).isEqualTo(5);
+
+        // 마지막 페이지는 읽은 개수로 계산한다
+        Page<Member> last = memberPageQueries.findByAge(7401, PageRequest.of(2, 2, Sort.by("userName")), CountMode.CACHED);
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.getTotalElements()).isEqualTo(5);
+
+        em.persist(new Member("pageAge5", 7401));
+        em.flush();
+        assertThat(memberPageQueries.findByAge(7401, firstPage, CountMode.CACHED).getTotalElements()).isEqualTo(5);
+        assertThat(memberPageQueries.findByAge(7401, firstPage, CountMode.APPROXIMATE).getTotalElements()).isEqualTo(5);
+        assertThat(memberPageQueries.findByAge(7401, firstPage, CountMode.EXACT).getTotalElements()).isEqualTo(6);
+
+        Page<Member> other = memberPageQueries.findByAge(7402, PageRequest.of(0, 1), CountMode.CACHED);
+        assertThat(other.getTotalElements()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.monitoring.SqlBudget;
+import com.study.datajpa.monitoring.SqlBudgetExtension;
+import com.study.datajpa.monitoring.SqlStatementCounter;
+import com.study.datajpa.monitoring.SqlStatementScope;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+@ExtendWith(SqlBudgetExtension.class)
+class MemberRepositorySqlBudgetTest {
+
+    // 공유 db 의 다른 회원과 섞이지 않도록 이 테스트의 회원만 갖는 나이
+    static final int BUDGET_AGE = 9130;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @PersistenceContext
+    EntityManager em;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 3; i++) {
+            Team team = new Team("budgetTeam" + i);
+            em.persist(team);
+            em.persist(new Member("budget" + i, BUDGET_AGE, team));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    @SqlBudget(maxSelects = 1)
+    void fetchJoin() {
+        List<Member> members = memberRepository.findMemberFetchJoin();
+        members.forEach(member -> touchTeam(member));
+    }
+
+    @Test
+    @SqlBudget(maxSelects = 1)
+    void entityGraph() {
+        List<Member> members = memberRepository.findMemberEntityGraph();
+        members.forEach(member -> touchTeam(member));
+    }
+
+    // 지연 로딩도 default_batch_fetch_size 로 아직 로딩되지 않은 팀들을 in 쿼리 한번으로 가져온다
+    @Test
+    @SqlBudget(maxSelects = 2)
+    void lazyLoadingIsBatched() {
+        try (SqlStatementScope scope = SqlStatementCounter.open("lazy")) {
+            List<Member> members = memberRepository.findByNames(List.of("budget0", "budget1", "budget2"));
+            members.forEach(member -> touchTeam(member));
+
+            assertThat(scope.getSelects()).isEqualTo(1 + 1);
+            assertThat(scope.getShapes().keySet()).anyMatch(sql -> sql.contains("team_id in(?)"));
+        }
+    }
+
+    // 직접 만든 repository 로 조회해도 같은 영속성 컨텍스트라면 똑같이 묶인다
+    // 2차 캐시에 남은 팀이 있으면 in 쿼리 없이 통과하므로 team 영역을 먼저 비운다
+    @Test
+    @SqlBudget(maxSelects = 2)
+    void lazyLoadingIsBatchedForJpaRepository() {
+        em.getEntityManagerFactory().getCache().evict(Team.class);
+        try (SqlStatementScope scope = SqlStatementCounter.open("lazyJpa")) {
+            List<Member> members = memberJpaRepository.findByPage(BUDGET_AGE, 0, 10);
+            members.forEach(member -> touchTeam(member));
+
+            assertThat(members).hasSize(3);
+            assertThat(scope.getSelects()).isEqualTo(1 + 1);
+            assertThat(scope.getShapes().keySet()).anyMatch(sql -> sql.contains("team_id in(?)"));
+        }
+    }
+
+    // 팀 페이지의 members 컬렉션도 팀 수와 관계없이 한번에 초기화된다
+    @Test
+    @SqlBudget(maxSelects = 2)
+    void collectionLoadingIsBatched() {
+        List<Team> teams = em.createQuery("select t from Team t where t.name like 'budgetTeam%'", Team.class)
+                .getResultList();
+        int members = 0;
+        for (Team team : teams) {
+            members += team.getMembers().size();
+        }
+        assertThat(members).isEqualTo(3);
+    }
+
+    private void touchTeam(Member member) {
+        if (member.getTeam() != null) {
+            member.getTeam().getName();
+        }
+    }
+}
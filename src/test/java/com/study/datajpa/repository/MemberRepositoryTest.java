@@ -1,14 +1,19 @@
 package com.study.datajpa.repository;
 
+import com.study.datajpa.cache.MemberCacheNames;
+import com.study.datajpa.dto.CursorSlice;
 import com.study.datajpa.dto.MemberDto;
 import com.study.datajpa.entity.Member;
 import com.study.datajpa.entity.Team;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
@@ -16,9 +21,11 @@ import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
@@ -32,6 +39,10 @@ class MemberRepositoryTest {
     MemberRepository memberRepository;
     @Autowired
     TeamRepository teamRepository;
+    @Autowired
+    CacheManager cacheManager;
+    @Autowired
+    PageTotalCounter pageTotalCounter;
     @PersistenceContext
     EntityManager em;
 
@@ -194,6 +205,131 @@ class MemberRepositoryTest {
 
     }
 
+    @Test
+    void slice() {
+        memberRepository.save(new Member("s1", 777));
+        memberRepository.save(new Member("s2", 777));
+        memberRepository.save(new Member("s3", 777));
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.ASC, "userName"));
+
+        Slice<Member> slice = memberRepository.findSliceByAge(777, pageRequest);
+
+        assertThat(slice.getContent().size()).isEqualTo(2);
+        assertThat(slice.hasNext()).isTrue();
+    }
+
+    @Test
+    void pageTotalCountMode() {
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("count" + i, 555));
+        }
+        em.flush();
+
+        // 마지막 페이지는 count 쿼리를 실행하지 않는다
+        Slice<Member> last = memberRepository.findSliceByAge(555, PageRequest.of(1, 3));
+        Page<Member> lastPage = pageTotalCounter.toPage(last, CountMode.EXACT, "member", () -> {
+            throw new AssertionError("count 쿼리가 실행되면 안된다");
+        });
+        assertThat(lastPage.getTotalElements()).isEqualTo(5);
+
+        // 캐시된 count 는 ttl 동안 재사용된다
+        Slice<Member> first = memberRepository.findSliceByAge(555, PageRequest.of(0, 3));
+        Page<Member> cached = pageTotalCounter.toPage(first, CountMode.CACHED, "member_count_test", () -> 5);
+        Page<Member> cachedAgain = pageTotalCounter.toPage(first, CountMode.CACHED, "member_count_test", () -> 100);
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+        assertThat(cachedAgain.getTotalElements()).isEqualTo(5);
+
+        // 추정치가 부족해도 다음 페이지가 있다는 것은 유지된다
+        Page<Member> approximate = pageTotalCounter.toPage(first, CountMode.APPROXIMATE, "member", memberRepository::count);
+        assertThat(approximate.hasNext()).isTrue();
+        assertThat(approximate.getTotalElements()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void memberDtoPage() {
+        Team team = new Team("dtoTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("dto1", 10, team));
+        memberRepository.save(new Member("dto2", 10));
+        em.flush();
+        em.clear();
+
+        PageRequest pageRequest = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"));
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(pageRequest);
+        Slice<MemberDto> slice = memberRepository.findMemberDtoSlice(pageRequest);
+
+        // 팀이 없는 회원도 포함되고, 엔티티는 영속성 컨텍스트에 올라가지 않는다
+        assertThat(page.getContent()).extracting(MemberDto::getUserName).containsExactly("dto2", "dto1");
+        assertThat(page.getContent()).extracting(MemberDto::getTeamName).containsExactly(null, "dtoTeam");
+        assertThat(page.getTotalElements()).isEqualTo(memberRepository.count());
+        assertThat(slice.getContent()).extracting(MemberDto::getId)
+                .containsExactlyElementsOf(page.map(MemberDto::getId).getContent());
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+    @Test
+    void cursorPaging() {
+        memberRepository.save(new Member("c3", 888));
+        memberRepository.save(new Member("c1", 888));
+        memberRepository.save(new Member("c2", 888));
+        memberRepository.save(new Member("c1", 888)); // 이름이 같으면 id 로 순서를 정한다
+        memberRepository.save(new Member("c4", 888));
+
+        List<String> names = new ArrayList<>();
+        String cursor = null;
+        CursorSlice<Member> slice;
+        do {
+            slice = memberRepository.findByAgeWithCursor(888, cursor, 2);
+            slice.getContent().forEach(member -> names.add(member.getUserName()));
+            cursor = slice.getNextCursor();
+        } while (slice.isHasNext());
+
+        assertThat(names).containsExactly("c1", "c1", "c2", "c3", "c4");
+        assertThat(slice.getNextCursor()).isNull();
+    }
+
+    @Test
+    void stream() {
+        Team team = new Team("streamTeam");
+        teamRepository.save(team);
+        memberRepository.save(new Member("stream1", 10, team));
+        memberRepository.save(new Member("stream2", 20, team));
+        em.flush();
+        em.clear();
+
+        try (Stream<Member> members = memberRepository.streamAll(1)) {
+            List<Member> result = members
+                    .filter(member -> member.getUserName() != null && member.getUserName().startsWith("stream"))
+                    .toList();
+
+            assertThat(result).extracting(Member::getUserName).containsExactly("stream1", "stream2");
+            // 읽은 엔티티는 영속성 컨텍스트에 남지 않는다
+            assertThat(result).noneMatch(em::contains);
+            assertThat(result.get(0).getTeam().getName()).isEqualTo("streamTeam");
+        }
+    }
+
+    @Test
+    void nearCache() {
+        Member member = memberRepository.save(new Member("near", 10));
+        em.flush();
+
+        Cache cache = cacheManager.getCache(MemberCacheNames.READ_MODEL);
+        assertThat(memberRepository.findReadModelById(member.getId()).orElseThrow().getUserName()).isEqualTo("near");
+        assertThat(cache.get(member.getId())).isNotNull();
+
+        // 변경 감지로 update 되면 캐시에서 제거된다
+        member.setUserName("near2");
+        em.flush();
+        assertThat(cache.get(member.getId())).isNull();
+        assertThat(memberRepository.findReadModelById(member.getId()).orElseThrow().getUserName()).isEqualTo("near2");
+
+        // 벌크 연산은 캐시 전체를 비운다
+        memberRepository.bulkAgePlus(9999);
+        assertThat(cache.get(member.getId())).isNull();
+    }
+
     @Test
     void bulkUpdate() {
         memberRepository.save(new Member("1", 10));
@@ -287,10 +423,15 @@ class MemberRepositoryTest {
         em.flush();
         em.clear();
 
-        List<UserNameOnly> result = memberRepository.findProjectionsByUsername("m1");
+        List<UserNameWithAge> result = memberRepository.findProjectionsByUsername("m1");
 
-        for (UserNameOnly userNameOnly : result) {
-            System.out.println("userNameOnly = " + userNameOnly);
+        for (UserNameWithAge userNameWithAge : result) {
+            System.out.println("userNameWithAge = " + userNameWithAge);
         }
+        assertThat(result).extracting(UserNameWithAge::getUserNameWithAge).containsExactly("m1 0");
+
+        // 동적 projection 은 closed 인터페이스면 필요한 컬럼만 조회한다
+        List<UserNameOnly> dynamic = memberRepository.findDynamicProjectionsByUserName("m2", UserNameOnly.class);
+        assertThat(dynamic).extracting(UserNameOnly::getUserName).containsExactly("m2");
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.entity.Member;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 리포지토리가 트랜잭션을 직접 여는 경우를 확인하므로 테스트를 트랜잭션으로 묶지 않는다
+ */
+@SpringBootTest
+class ReadOnlyTransactionTest {
+
+    static final int AGE = FixtureAge.READ_ONLY_TRANSACTION.from();
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void setUp() {
+        cleanUp();
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            members.add(new Member("readOnly" + i, AGE));
+        }
+        memberRepository.saveAllBatched(members, 10);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> FixtureAge.READ_ONLY_TRANSACTION.deleteMembers(em));
+    }
+
+    // 직접 선언한 쿼리 메소드 / 커스텀 메소드도 readOnly 트랜잭션으로 실행되고 커밋 시 flush 하지 않는다
+    @Test
+    void declaredQueryMethodsRunInReadOnlyTransaction() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long transactions = statistics.getTransactionCount();
+        long flushes = statistics.getFlushCount();
+
+        assertThat(memberRepository.findByUserNameAndAgeGreaterThan("readOnly0", AGE - 1)).hasSize(1);
+        assertThat(memberRepository.findByAgeWithCursor(AGE, null, 10).getContent()).hasSize(3);
+
+        assertThat(statistics.getTransactionCount() - transactions).isEqualTo(2);
+        assertThat(statistics.getFlushCount() - flushes).isZero();
+    }
+
+    // 읽기 전용 세션에서 조회한 엔티티는 스냅샷이 없어서 수정해도 반영되지 않는다
+    @Test
+    void readOnlySessionKeepsNoSnapshots() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            Session session = em.unwrap(Session.class);
+            List<Member> members = memberRepository.findByUserNameAndAgeGreaterThan("readOnly0", AGE - 1);
+
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+            assertThat(members).isNotEmpty().allMatch(session::isReadOnly);
+            members.forEach(member -> member.setAge(AGE + 1));
+        });
+
+        assertThat(memberRepository.findByUserNameAndAgeGreaterThan("readOnly0", AGE - 1))
+                .extracting(Member::getAge)
+                .containsOnly(AGE);
+    }
+
+    // 락 / in 절 조회는 메소드의 @Transactional 로 readOnly 기본값에서 빠진다
+    @Test
+    void methodsCanOptOut() {
+        Long id = memberRepository.findByUserNameAndAgeGreaterThan("readOnly0", AGE - 1).get(0).getId();
+        assertThatThrownBy(() -> memberRepository.findLockById(id))
+                .isInstanceOf(IllegalTransactionStateException.class);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long transactions = statistics.getTransactionCount();
+        assertThat(memberRepository.findByNames(List.of("readOnly1", "readOnly2"))).hasSize(2);
+        assertThat(statistics.getTransactionCount() - transactions).isZero();
+    }
+}
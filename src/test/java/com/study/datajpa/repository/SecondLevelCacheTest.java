@@ -0,0 +1,111 @@
+package com.study.datajpa.repository;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.cache.MemberCacheNames;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 2차 캐시는 트랜잭션이 끝나야 반영되므로 테스트 전체를 하나의 트랜잭션으로 묶지 않는다
+ * 커밋한 팀 / 회원은 끝나면 지운다
+ */
+@SpringBootTest
+class SecondLevelCacheTest {
+
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    EntityManager em;
+    @Autowired
+    CacheManager cacheManager;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            FixtureAge.SECOND_LEVEL_CACHE.deleteMembers(em);
+            em.createQuery("delete from Team t where t.name = 'cachedTeam'").executeUpdate();
+        });
+    }
+
+    @Test
+    void teamFromCache() {
+        Team team = teamRepository.save(new Team("cachedTeam"));
+
+        long hits = statistics.getDomainDataRegionStatistics("team").getHitCount();
+
+        // 트랜잭션(영속성 컨텍스트)이 달라도 db 를 가지 않는다
+        teamRepository.findById(team.getId());
+        teamRepository.findById(team.getId());
+
+        assertThat(statistics.getDomainDataRegionStatistics("team").getHitCount()).isEqualTo(hits + 2);
+    }
+
+    @Test
+    void queryCacheInvalidatedByBulkUpdate() {
+        int age = FixtureAge.SECOND_LEVEL_CACHE.from();
+        memberRepository.save(new Member("cachedMember", age));
+
+        memberRepository.findListByUserName("cachedMember");
+        long hits = statistics.getQueryCacheHitCount();
+        memberRepository.findListByUserName("cachedMember");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+
+        // 벌크 연산은 영속성 컨텍스트를 거치지 않지만 캐시는 무효화 되어야 한다
+        transactionTemplate.executeWithoutResult(status -> memberRepository.bulkAgePlus(age));
+        List<Member> afterBulkAgePlus = memberRepository.findListByUserName("cachedMember");
+        assertThat(afterBulkAgePlus.get(0).getAge()).isEqualTo(age + 10);
+
+        transactionTemplate.executeWithoutResult(status -> memberJpaRepository.bulkAge(age + 10));
+        List<Member> afterBulkAge = memberRepository.findListByUserName("cachedMember");
+        assertThat(afterBulkAge.get(0).getAge()).isEqualTo(age + 20);
+        assertThat(memberJpaRepository.findById(afterBulkAge.get(0).getId()).orElseThrow().getAge()).isEqualTo(age + 20);
+    }
+
+    // 벌크 연산 후 커밋 전에 다른 요청이 이전 값을 다시 캐시해도 커밋 뒤에 한번 더 비운다
+    @Test
+    void readModelCacheClearedAfterBulkCommit() {
+        int age = FixtureAge.SECOND_LEVEL_CACHE.from();
+        Member member = memberRepository.save(new Member("cachedMember", age));
+        Cache cache = cacheManager.getCache(MemberCacheNames.READ_MODEL);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.bulkAgePlus(age);
+            CompletableFuture.runAsync(() -> memberRepository.findReadModelById(member.getId())).join();
+            assertThat(cache.get(member.getId())).isNotNull();
+        });
+
+        assertThat(cache.get(member.getId())).isNull();
+    }
+}
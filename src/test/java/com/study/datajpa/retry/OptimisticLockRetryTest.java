@@ -0,0 +1,159 @@
+package com.study.datajpa.retry;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class OptimisticLockRetryTest {
+
+    @Autowired
+    MemberService memberService;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    RetryBudget retryBudget;
+
+    // 같은 회원을 여러 스레드에서 수정해도 갱신이 사라지지 않는다
+    // 재시도 한도를 넘은 호출은 실패로 끝나므로 성공한 호출 수만큼 증가했는지 확인한다
+    // 스레드를 동시에 출발시켜서 충돌이 나게 하고, 그 충돌을 재시도로 넘겼는지도 확인한다
+    @Test
+    void concurrentIncrements() throws Exception {
+        int age = FixtureAge.OPTIMISTIC_RETRY.from();
+        Member member = memberRepository.save(new Member("retry", age));
+        long retriesBefore = retryBudget.getRetries();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 25; i++) {
+                        try {
+                            memberService.increaseAge(member.getId(), 1);
+                            succeeded.incrementAndGet();
+                        } catch (OptimisticLockingFailureException e) {
+                            failed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            Member result = memberRepository.findById(member.getId()).orElseThrow();
+            assertThat(succeeded.get() + failed.get()).isEqualTo(200);
+            assertThat(result.getAge()).isEqualTo(age + succeeded.get());
+            assertThat(result.getVersion()).isEqualTo(succeeded.get());
+            assertThat(retryBudget.getRetries()).isGreaterThan(retriesBefore);
+        } finally {
+            executor.shutdownNow();
+            memberRepository.deleteById(member.getId());
+        }
+    }
+
+    // 아래는 컨텍스트의 RetryBudget 과 별개로 aspect 만 붙인 프록시로 확인한다
+    @Test
+    void retriesUntilSuccess() {
+        FlakyUpdater target = new FlakyUpdater(2);
+        assertThat(proxy(target, new RetryBudget(0.2, 100)).update()).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        FlakyUpdater target = new FlakyUpdater(10);
+        assertThatThrownBy(() -> proxy(target, new RetryBudget(0.2, 100)).update())
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(target.attempts.get()).isEqualTo(3);
+    }
+
+    @Test
+    void givesUpWhenBudgetIsExhausted() {
+        FlakyUpdater target = new FlakyUpdater(2);
+        RetryBudget budget = new RetryBudget(0, 1);
+        assertThatThrownBy(() -> proxy(target, budget).update())
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+        assertThat(target.attempts.get()).isEqualTo(2);
+        assertThat(budget.getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void otherExceptionsAreNotRetried() {
+        FlakyUpdater target = new FlakyUpdater(0);
+        assertThatThrownBy(() -> proxy(target, new RetryBudget(0.2, 100)).fail())
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(target.attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void budget() {
+        RetryBudget budget = new RetryBudget(0.5, 2);
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+
+        // 호출 두 번에 재시도 한 번
+        budget.onCall();
+        budget.onCall();
+        assertThat(budget.tryAcquireRetry()).isTrue();
+        assertThat(budget.tryAcquireRetry()).isFalse();
+        assertThat(budget.getRejected()).isEqualTo(2);
+    }
+
+    private static FlakyUpdater proxy(FlakyUpdater target, RetryBudget budget) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new OptimisticLockRetryAspect(budget));
+        return factory.getProxy();
+    }
+
+    // 처음 failures 번은 낙관적 락 충돌로 실패한다
+    static class FlakyUpdater {
+        final AtomicInteger attempts = new AtomicInteger();
+        final int failures;
+
+        FlakyUpdater(int failures) {
+            this.failures = failures;
+        }
+
+        @RetryOnOptimisticLock(maxAttempts = 3, backoffMillis = 1)
+        public int update() {
+            int attempt = attempts.incrementAndGet();
+            if (attempt <= failures) {
+                throw new ObjectOptimisticLockingFailureException(Member.class, 1L);
+            }
+            return attempt;
+        }
+
+        @RetryOnOptimisticLock
+        public int fail() {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("fail");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.study.datajpa.routing;
+
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * primary, replica 모두 메모리 h2 를 사용한다
+ * (ddl-auto: create 가 다른 테스트가 쓰는 tcp db 를 다시 만들지 않도록 primary 도 분리)
+ * replica-2 는 존재하지 않는 서버라서 health check 에서 제외되어야 한다
+ * 어느 db 로 갔는지는 h2 의 DATABASE() 함수로 확인한다
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "datasource.routing.enabled=true",
+        "datasource.routing.replication-lag=300ms",
+        "datasource.routing.connection-timeout=1s",
+        "datasource.routing.replicas[0].url=jdbc:h2:mem:replica0;DB_CLOSE_DELAY=-1",
+        "datasource.routing.replicas[0].username=sa",
+        "datasource.routing.replicas[1].url=jdbc:h2:mem:replica1;DB_CLOSE_DELAY=-1",
+        "datasource.routing.replicas[1].username=sa",
+        "datasource.routing.replicas[2].url=jdbc:h2:tcp://localhost:1/~/missing",
+        "datasource.routing.replicas[2].username=sa",
+})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ReplicaPool replicaPool;
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Test
+    void readOnlyGoesToHealthyReplicas() {
+        assertThat(replicaPool.health()).containsEntry("replica-2", false);
+
+        Set<String> databases = new HashSet<>();
+        for (int i = 0; i < 6; i++) {
+            databases.add(database(true));
+        }
+        assertThat(databases).containsExactlyInAnyOrder("REPLICA0", "REPLICA1");
+    }
+
+    @Test
+    void writeGoesToPrimary() {
+        assertThat(database(false)).isEqualTo("PRIMARY");
+    }
+
+    @Test
+    void readYourWritesAfterSave() throws InterruptedException {
+        teamRepository.save(new Team("routingTeam"));
+
+        // 복제 지연 시간 안에는 같은 스레드의 읽기도 primary 에서 읽는다
+        assertThat(database(true)).isEqualTo("PRIMARY");
+
+        Thread.sleep(400);
+        assertThat(database(true)).startsWith("REPLICA");
+    }
+
+    // open-in-view 처럼 EntityManager 하나를 여러 트랜잭션이 같이 써도 트랜잭션마다 다시 라우팅한다
+    @Test
+    void readThenWriteInOneEntityManager() throws InterruptedException {
+        Thread.sleep(400); // 앞선 테스트의 쓰기로 primary 에서 읽지 않도록 복제 지연 시간을 넘긴다
+
+        EntityManager shared = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(shared));
+        try {
+            assertThat(database(true)).startsWith("REPLICA");
+            assertThat(database(false)).isEqualTo("PRIMARY");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            EntityManagerFactoryUtils.closeEntityManager(shared);
+        }
+    }
+
+    private String database(boolean readOnly) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(readOnly);
+        return template.execute(status -> (String) em.createNativeQuery("call database()").getSingleResult());
+    }
+}
@@ -0,0 +1,103 @@
+package com.study.datajpa.search;
+
+import com.study.datajpa.FixtureAge;
+import com.study.datajpa.controller.MemberController;
+import com.study.datajpa.dto.MemberDto;
+import com.study.datajpa.entity.Member;
+import com.study.datajpa.entity.Team;
+import com.study.datajpa.repository.MemberRepository;
+import com.study.datajpa.repository.TeamRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberNameIndexTest {
+
+    @Autowired
+    MemberNameIndex memberNameIndex;
+    @Autowired
+    MemberController memberController;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    TeamRepository teamRepository;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    // 아래 세 테스트는 db 없이 색인만 사용한다
+    @Test
+    void substringAndPrefix() {
+        MemberNameIndex index = new MemberNameIndex(null, null);
+        index.put(1L, "Alice");
+        index.put(2L, "Malice");
+        index.put(3L, "bob");
+        index.put(4L, "ALI");
+
+        assertThat(index.search("lic", 10)).containsExactly(1L, 2L);
+        // 이름이 검색어로 시작하는 회원이 먼저 나온다
+        assertThat(index.search("ali", 10)).containsExactly(4L, 1L, 2L);
+        assertThat(index.search("ali", 2)).containsExactly(4L, 1L);
+        // 3글자 미만은 이름 목록을 훑는다
+        assertThat(index.search("b", 10)).containsExactly(3L);
+        assertThat(index.search("xyz", 10)).isEmpty();
+        assertThat(index.search(" ", 10)).isEmpty();
+    }
+
+    // trigram 이 모두 있어도 이어져 있지 않으면 결과가 아니다
+    @Test
+    void verifiesCandidates() {
+        MemberNameIndex index = new MemberNameIndex(null, null);
+        index.put(1L, "abcxbcd");
+
+        assertThat(index.search("abcd", 10)).isEmpty();
+        assertThat(index.search("bcd", 10)).containsExactly(1L);
+    }
+
+    @Test
+    void renameAndRemove() {
+        MemberNameIndex index = new MemberNameIndex(null, null);
+        index.put(1L, "alpha");
+        index.put(1L, "beta");
+        assertThat(index.search("alp", 10)).isEmpty();
+        assertThat(index.search("bet", 10)).containsExactly(1L);
+
+        index.remove(1L);
+        assertThat(index.search("bet", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    // save / 변경 감지 / delete 가 커밋된 뒤 색인에 반영되고, 검색 결과는 한번의 조회로 채워진다
+    @Test
+    void followsEntityLifecycle() {
+        Team team = teamRepository.save(new Team("searchTeam"));
+        Member member = memberRepository.save(new Member("zqSearchAlpha", FixtureAge.NAME_INDEX.from(), team));
+
+        List<MemberDto> found = memberController.search("searchalp", 10);
+        assertThat(found).extracting(MemberDto::getId).containsExactly(member.getId());
+        assertThat(found.get(0).getTeamName()).isEqualTo("searchTeam");
+
+        transactionTemplate.executeWithoutResult(status ->
+                memberRepository.findById(member.getId()).orElseThrow().setUserName("zqSearchBeta"));
+        assertThat(memberController.search("searchalp", 10)).isEmpty();
+        assertThat(memberController.search("zqSearchBe", 10)).extracting(MemberDto::getId).containsExactly(member.getId());
+
+        // 롤백된 변경은 반영되지 않는다
+        transactionTemplate.executeWithoutResult(status -> {
+            memberRepository.findById(member.getId()).orElseThrow().setUserName("zqSearchGamma");
+            memberRepository.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(memberController.search("searchgam", 10)).isEmpty();
+
+        memberRepository.deleteById(member.getId());
+        assertThat(memberController.search("zqSearch", 10)).isEmpty();
+        transactionTemplate.executeWithoutResult(status ->
+                teamRepository.delete(teamRepository.findById(team.getId()).orElseThrow()));
+    }
+}